@@ -0,0 +1,198 @@
+package org.lhotse.config.core;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.lhotse.config.core.annotations.Index;
+import org.lhotse.config.core.annotations.StorageConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 压测用的配置表, 生成指定行数的Json和Excel文件<br>
+ * basic只有基础类型和字符串, rich另外包含枚举, 集合和数组
+ */
+final class BenchmarkData {
+
+    static final String[] BASIC_TITLES = {"id", "name", "level", "exp", "rate", "enabled"};
+    static final String[] RICH_TITLES = {"id", "name", "level", "exp", "rate", "enabled", "quality", "rewards", "attrs", "costs"};
+
+    enum Quality {
+        WHITE, GREEN, BLUE, PURPLE, ORANGE
+    }
+
+    @StorageConfig(path = "basic.json")
+    record BasicJson(Integer id, String name, int level, long exp, double rate, boolean enabled) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "basic.xlsx")
+    record BasicExcel(Integer id, String name, int level, long exp, double rate, boolean enabled) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "rich.json")
+    record RichJson(Integer id, String name, @Index int level, long exp, double rate, boolean enabled, Quality quality,
+                    List<Integer> rewards, Map<String, Integer> attrs, int[] costs) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "rich.xlsx")
+    record RichExcel(Integer id, String name, @Index int level, long exp, double rate, boolean enabled, Quality quality,
+                     List<Integer> rewards, Map<String, Integer> attrs, int[] costs) implements IConfig<Integer> {
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 配置类
+     *
+     * @param schema basic或rich
+     * @param format json或xlsx
+     */
+    static Class<? extends IConfig<Integer>> type(String schema, String format) {
+        return switch (schema + "." + format) {
+            case "basic.json" -> BasicJson.class;
+            case "basic.xlsx" -> BasicExcel.class;
+            case "rich.json" -> RichJson.class;
+            case "rich.xlsx" -> RichExcel.class;
+            default -> throw new IllegalArgumentException(schema + "." + format);
+        };
+    }
+
+    static Set<Class<?>> types() {
+        return Set.of(BasicJson.class, BasicExcel.class, RichJson.class, RichExcel.class);
+    }
+
+    /**
+     * 生成所有配置文件
+     *
+     * @param rows 每张表的行数
+     */
+    static Path generate(int rows) {
+        try {
+            var dir = Files.createTempDirectory("lhotse-benchmark");
+            for (String schema : new String[]{"basic", "rich"}) {
+                write(dir, schema, "json", rows, 0);
+                write(dir, schema, "xlsx", rows, 0);
+            }
+            return dir;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static void delete(Path dir) {
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 写入配置文件, 不同版本只有第一行不同, 先写临时文件再替换
+     *
+     * @param version 版本号
+     * @return 文件路径
+     */
+    static Path write(Path dir, String schema, String format, int rows, int version) {
+        var titles = "basic".equals(schema) ? BASIC_TITLES : RICH_TITLES;
+        var path = dir.resolve(schema + "." + format);
+        var temp = dir.resolve(schema + "." + format + ".tmp");
+        try (var out = Files.newOutputStream(temp)) {
+            if ("json".equals(format)) {
+                writeJson(out, titles, rows, version);
+            } else {
+                writeExcel(out, titles, rows, version);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return path;
+    }
+
+    /**
+     * 第row行各列的文本, 固定种子保证每次生成相同
+     */
+    static String[] row(String[] titles, int row, int version) {
+        var random = new Random(row);
+        var values = new String[titles.length];
+        for (int i = 0; i < titles.length; i++) {
+            values[i] = switch (titles[i]) {
+                case "id" -> String.valueOf(row + 1);
+                case "name" -> row == 0 ? "name-v" + version : "icon/item_" + random.nextInt(500) + ".png";
+                case "level" -> String.valueOf(random.nextInt(100));
+                case "exp" -> String.valueOf(random.nextLong(1L << 40));
+                case "rate" -> String.valueOf(random.nextInt(10000) / 100.0);
+                case "enabled" -> String.valueOf(random.nextBoolean());
+                case "quality" -> Quality.values()[random.nextInt(Quality.values().length)].name();
+                case "rewards" -> "[" + random.nextInt(1000) + "," + random.nextInt(1000) + "," + random.nextInt(1000) + "]";
+                case "attrs" -> "{\"atk\":" + random.nextInt(100) + ",\"def\":" + random.nextInt(100) + "}";
+                case "costs" -> random.nextInt(10) + "," + random.nextInt(10);
+                default -> "";
+            };
+        }
+        return values;
+    }
+
+    static void writeJson(OutputStream out, String[] titles, int rows, int version) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write("[\n");
+            for (int row = 0; row < rows; row++) {
+                var values = row(titles, row, version);
+                writer.write(row == 0 ? "{" : ",\n{");
+                for (int i = 0; i < titles.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write('"' + titles[i] + "\":\"" + values[i].replace("\"", "\\\"") + '"');
+                }
+                writer.write('}');
+            }
+            writer.write("\n]\n");
+        }
+    }
+
+    /**
+     * 第0行启用标记, 第1行说明, 第2行表头, 之后为数据
+     */
+    static void writeExcel(OutputStream out, String[] titles, int rows, int version) throws IOException {
+        var workbook = new SXSSFWorkbook(1000);
+        try {
+            var sheet = workbook.createSheet("data");
+            sheet.createRow(0).createCell(0).setCellValue("true");
+            var comment = sheet.createRow(1);
+            var title = sheet.createRow(2);
+            for (int i = 0; i < titles.length; i++) {
+                comment.createCell(i).setCellValue(titles[i]);
+                title.createCell(i).setCellValue(titles[i]);
+            }
+            for (int row = 0; row < rows; row++) {
+                var values = row(titles, row, version);
+                var excelRow = sheet.createRow(row + 3);
+                for (int i = 0; i < titles.length; i++) {
+                    var cell = excelRow.createCell(i);
+                    switch (titles[i]) {
+                        case "id", "level", "exp", "rate" -> cell.setCellValue(Double.parseDouble(values[i]));
+                        default -> cell.setCellValue(values[i]);
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.lhotse.config.core;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 压测入口, 未指定时结果以JSON写入jmh-result.json, 便于对比版本间的变化<br>
+ * java -jar lhotse-benchmarks/target/benchmarks.jar [JMH参数]
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var commandLine = new CommandLineOptions(args);
+        var builder = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getResultFormat().hasValue() || commandLine.getResult().hasValue()) {
+            new Runner(builder.build()).run();
+            return;
+        }
+        new Runner(builder.resultFormat(ResultFormatType.JSON).result("jmh-result.json").build()).run();
+    }
+}
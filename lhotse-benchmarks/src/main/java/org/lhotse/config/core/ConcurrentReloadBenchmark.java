@@ -0,0 +1,64 @@
+package org.lhotse.config.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热更新期间的查询延迟, 3个线程查询, 1个线程不断修改文件并刷新
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentReloadBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    Path dir;
+    GlobalDataStorage storage;
+    IntStorage<BenchmarkData.RichJson> items;
+    int version;
+
+    /**
+     * 每个查询线程独立的id游标, 避免共享字段的竞争和伪共享影响查询延迟
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchmarkData.generate(rows);
+        storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(BenchmarkData.RichJson.class));
+        items = new StorageFactory(storage).createInt(BenchmarkData.RichJson.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    @Group("readDuringReload")
+    @GroupThreads(3)
+    public Object read(Cursor cursor) {
+        return items.get((cursor.next++ % rows) + 1).orElse(null);
+    }
+
+    @Benchmark
+    @Group("readDuringReload")
+    @GroupThreads(1)
+    public long reload() {
+        var path = BenchmarkData.write(dir, "rich", "json", rows, ++version);
+        storage.refreshForPath(Set.of(path.toAbsolutePath().normalize().toString()));
+        return storage.snapshot().generation();
+    }
+}
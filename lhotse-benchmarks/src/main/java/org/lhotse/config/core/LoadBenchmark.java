@@ -0,0 +1,77 @@
+package org.lhotse.config.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷启动加载和单文件热更新
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({"1000", "50000"})
+    int rows;
+
+    @Param({"basic", "rich"})
+    String schema;
+
+    @Param({"json", "xlsx"})
+    String format;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    @Param({"false", "true"})
+    boolean pipelined;
+
+    Path dir;
+    Class<?> type;
+    GlobalDataStorage storage;
+    int version;
+    String changed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchmarkData.generate(rows);
+        type = BenchmarkData.type(schema, format);
+        storage = new GlobalDataStorage(dir.toString(), 0L, false, parallelism);
+        storage.setPipelined(pipelined);
+        storage.init(Set.of(type));
+    }
+
+    /**
+     * 每次热更新前修改第一行
+     */
+    @Setup(Level.Invocation)
+    public void change() {
+        changed = BenchmarkData.write(dir, schema, format, rows, ++version).toAbsolutePath().normalize().toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public ConfigSnapshot coldLoad() {
+        var storage = new GlobalDataStorage(dir.toString(), 0L, false, parallelism);
+        storage.setPipelined(pipelined);
+        storage.init(Set.of(type));
+        return storage.snapshot();
+    }
+
+    @Benchmark
+    public ConfigSnapshot incrementalReload() {
+        storage.refreshForPath(Set.of(changed));
+        return storage.snapshot();
+    }
+}
@@ -0,0 +1,109 @@
+package org.lhotse.config.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条查询和全表遍历
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    Path dir;
+    GlobalDataStorage storage;
+    Storage<Integer, BenchmarkData.RichJson> boxed;
+    IntStorage<BenchmarkData.RichJson> primitive;
+    int[] ids;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchmarkData.generate(rows);
+        storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(BenchmarkData.RichJson.class));
+        var factory = new StorageFactory(storage);
+        boxed = factory.create(BenchmarkData.RichJson.class);
+        primitive = factory.createInt(BenchmarkData.RichJson.class);
+        var random = new Random(0);
+        ids = new int[1024];
+        for (int i = 0; i < ids.length; i++) {
+            // 约10%不存在
+            ids[i] = random.nextInt(rows + rows / 10) + 1;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    int nextId() {
+        return ids[next++ & (ids.length - 1)];
+    }
+
+    @Benchmark
+    public Object getBoxed() {
+        return boxed.get(nextId()).orElse(null);
+    }
+
+    @Benchmark
+    public Object getPrimitive() {
+        return primitive.get(nextId()).orElse(null);
+    }
+
+    @Benchmark
+    public Object getOrNullBoxed() {
+        return boxed.getOrNull(nextId());
+    }
+
+    @Benchmark
+    public Object getOrNullPrimitive() {
+        return primitive.getOrNull(nextId());
+    }
+
+    @Benchmark
+    public Object getFromSnapshot() {
+        return storage.snapshot().get(BenchmarkData.RichJson.class, nextId()).orElse(null);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Object getInSafeBatchQuery() {
+        var id = nextId();
+        return GlobalDataStorage.safeBatchQuery(() -> new GlobalDataStorage.Tuple2<>(primitive.get(id).orElse(null), null)).t1();
+    }
+
+    @Benchmark
+    public Object findByIndex() {
+        return boxed.findBy("level", nextId() % 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long fullScanList() {
+        long sum = 0;
+        for (BenchmarkData.RichJson config : boxed.listConfig()) {
+            sum += config.exp();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void fullScanForEach(Blackhole blackhole) {
+        boxed.forEach(config -> blackhole.consume(config.exp()));
+    }
+}
@@ -0,0 +1,53 @@
+package org.lhotse.config.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个文件读取为原始内容, 不含字段解析
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"1000", "50000"})
+    int rows;
+
+    @Param({"basic", "rich"})
+    String schema;
+
+    @Param({"json", "xlsx"})
+    String format;
+
+    @Param({"false", "true"})
+    boolean streaming;
+
+    Path dir;
+    String path;
+    FileReader reader;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchmarkData.generate(rows);
+        path = dir.resolve(schema + "." + format).toString();
+        reader = ConfigReader.get(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> readFile() {
+        return reader.readFile(path, streaming);
+    }
+}
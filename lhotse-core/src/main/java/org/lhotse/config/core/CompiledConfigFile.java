@@ -0,0 +1,226 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.annotations.SingleConfig;
+import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 预编译配置数据, 保存文件读取后的原始内容, 启动时跳过Excel和Json解析<br>
+ * 文件格式(大端):<br>
+ * | magic | version | schema指纹 | 文件数 | <br>
+ * | 相对路径 | 源文件哈希 | 类型(0多数据/1单配置) | 内容 | ... <br>
+ * 多数据配置表按列存储: | 列数 | 列名... | 行数 | 第1列所有行 | 第2列所有行 | ... <br>
+ * 字符串均为 | 长度 | UTF-8内容 |, 长度-1表示空
+ *
+ * @param fingerprint 配置类结构指纹
+ * @param files       相对路径: 文件内容
+ * @param hashes      相对路径: 源文件哈希
+ */
+record CompiledConfigFile(long fingerprint, Map<String, DataContainer.RawFile> files, Map<String, Long> hashes) {
+
+    static final int MAGIC = 0x4C48534E;
+    static final int VERSION = 1;
+
+    static final byte MULTI = 0;
+    static final byte SINGLE = 1;
+
+    /**
+     * 配置类结构和读取器指纹, 类名, 文件路径, 字段名, 字段类型, 自定义解析器以及读取器及其版本任一变化都会改变指纹
+     */
+    static long fingerprint(Map<Class<?>, ConfigTypeInfo> typeInfo) {
+        var hash = new FileHash();
+        // 预编译数据保存的是读取器输出的原文, 读取规则变化时不能复用
+        ConfigReader.readers().stream()
+                .map(e -> e.getClass().getName() + "@" + e.revision())
+                .sorted()
+                .forEach(hash::update);
+        typeInfo.values().stream()
+                .sorted(Comparator.comparing(e -> e.clazz().getName()))
+                .forEach(info -> {
+                    var clazz = info.clazz();
+                    hash.update(clazz.getName());
+                    var storageConfig = clazz.getAnnotation(StorageConfig.class);
+                    hash.update(storageConfig == null ? "" : storageConfig.path());
+                    var singleConfig = clazz.getAnnotation(SingleConfig.class);
+                    hash.update(singleConfig == null ? "" : singleConfig.key());
+                    info.fieldInfos().stream()
+                            .sorted(Comparator.comparing(FieldInfo::name))
+                            .forEach(field -> {
+                                hash.update(field.name());
+                                if (field instanceof NormalFieldInfo normal) {
+                                    hash.update(normal.type.getTypeName());
+                                }
+                                if (field instanceof RefFieldInfo ref) {
+                                    hash.update(ref.type.getTypeName());
+                                    hash.update(ref.target.getName());
+                                }
+                                if (field instanceof CustomFieldInfo custom) {
+                                    hash.update(custom.type.getTypeName());
+                                    hash.update(custom.convertor.getClass().getName());
+                                }
+                            });
+                });
+        return hash.value();
+    }
+
+    /**
+     * 相对配置表根路径
+     */
+    static String relative(String basePath, String path) {
+        var prefix = new File(basePath).getAbsolutePath() + File.separator;
+        if (!path.startsWith(prefix)) {
+            throw new LhotseException("文件不在配置表目录下" + path);
+        }
+        return path.substring(prefix.length());
+    }
+
+    void write(Path output) {
+        var temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(files.size());
+            for (var entry : new TreeMap<>(files).entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(hashes.get(entry.getKey()));
+                var file = entry.getValue();
+                if (file.multi() != null) {
+                    out.writeByte(MULTI);
+                    writeMulti(out, file.multi());
+                } else {
+                    out.writeByte(SINGLE);
+                    writeSingle(out, file.single());
+                }
+            }
+        } catch (IOException ex) {
+            throw new LhotseException("写入预编译数据失败" + output, ex);
+        }
+        try {
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new LhotseException("写入预编译数据失败" + output, ex);
+        }
+    }
+
+    static void writeMulti(DataOutputStream out, List<Map<String, String>> rows) throws IOException {
+        Set<String> columns = new TreeSet<>();
+        rows.forEach(row -> columns.addAll(row.keySet()));
+        out.writeInt(columns.size());
+        for (String column : columns) {
+            writeString(out, column);
+        }
+        out.writeInt(rows.size());
+        for (String column : columns) {
+            for (var row : rows) {
+                writeString(out, row.get(column));
+            }
+        }
+    }
+
+    static void writeSingle(DataOutputStream out, Map<String, Map<String, String>> single) throws IOException {
+        out.writeInt(single.size());
+        Map<String, Map<String, String>> sorted = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        sorted.putAll(single);
+        for (var entry : sorted.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (var value : new TreeMap<>(entry.getValue()).entrySet()) {
+                writeString(out, value.getKey());
+                writeString(out, value.getValue());
+            }
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读入堆内后一次解码所有文件, 不映射文件, 读取后不占用文件
+     */
+    static CompiledConfigFile read(Path input) {
+        try {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(input));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new LhotseException("预编译数据格式错误" + input);
+            }
+            var fingerprint = buffer.getLong();
+            var count = buffer.getInt();
+            Map<String, DataContainer.RawFile> files = new HashMap<>();
+            Map<String, Long> hashes = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                var path = readString(buffer);
+                hashes.put(path, buffer.getLong());
+                if (buffer.get() == MULTI) {
+                    files.put(path, new DataContainer.RawFile(readMulti(buffer), null));
+                } else {
+                    files.put(path, new DataContainer.RawFile(null, readSingle(buffer)));
+                }
+            }
+            return new CompiledConfigFile(fingerprint, files, hashes);
+        } catch (IOException | RuntimeException ex) {
+            throw new LhotseException("读取预编译数据失败" + input, ex);
+        }
+    }
+
+    static List<Map<String, String>> readMulti(ByteBuffer buffer) {
+        var columns = new String[buffer.getInt()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = readString(buffer);
+        }
+        var rowCount = buffer.getInt();
+        List<Map<String, String>> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(HashMap.newHashMap(columns.length));
+        }
+        for (String column : columns) {
+            for (var row : rows) {
+                var value = readString(buffer);
+                if (value != null) {
+                    row.put(column, value);
+                }
+            }
+        }
+        return rows;
+    }
+
+    static Map<String, Map<String, String>> readSingle(ByteBuffer buffer) {
+        var count = buffer.getInt();
+        Map<String, Map<String, String>> ret = HashMap.newHashMap(count);
+        for (int i = 0; i < count; i++) {
+            var key = readString(buffer);
+            var size = buffer.getInt();
+            Map<String, String> values = HashMap.newHashMap(size);
+            for (int j = 0; j < size; j++) {
+                values.put(readString(buffer), readString(buffer));
+            }
+            ret.put(key, values);
+        }
+        return ret;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package org.lhotse.config.core;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 离线预编译配置表, 发布时执行, 启动时通过{@link GlobalDataStorage#setCompiledPath(String)}加载
+ */
+public final class ConfigCompiler {
+
+    private ConfigCompiler() {
+    }
+
+    /**
+     * 读取所有配置表并写入预编译文件
+     *
+     * @param basePath 配置表根路径
+     * @param types    配置类
+     * @param output   输出文件
+     */
+    public static void compile(String basePath, Set<Class<?>> types, Path output) {
+        var typeInfoParse = new GlobalDataStorage.TypeInfoParse(basePath, types, true);
+        Map<String, DataContainer.RawFile> raw;
+        try (var executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+            raw = new DataContainer.StepWithRead(typeInfoParse.typeInfoMap, typeInfoParse.configTypeInfo, new DataContainer(), executor)
+                    .readFiles();
+        }
+        Map<String, DataContainer.RawFile> files = new HashMap<>();
+        Map<String, Long> hashes = new HashMap<>();
+        var fingerprints = GlobalDataStorage.fingerprints(raw.keySet());
+        raw.forEach((path, file) -> {
+            var relative = CompiledConfigFile.relative(basePath, path);
+            files.put(relative, file);
+            hashes.put(relative, fingerprints.get(GlobalDataStorage.sourceFile(path)).hash());
+        });
+        new CompiledConfigFile(CompiledConfigFile.fingerprint(typeInfoParse.configTypeInfo), files, hashes).write(output);
+    }
+}
@@ -0,0 +1,122 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.annotations.Index;
+import org.lhotse.config.core.annotations.UniqueIndex;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+
+/**
+ * 配置表某一版本的二级索引, 与{@link ConfigTable}一起创建, 热更新时一起替换
+ */
+@SuppressWarnings("rawtypes")
+final class ConfigIndex {
+
+    final IndexInfo info;
+    /**
+     * 字段值: 按文件中行顺序的数据
+     */
+    final Map<Object, List<IConfig>> groups;
+
+    private ConfigIndex(IndexInfo info, Map<Object, List<IConfig>> groups) {
+        this.info = info;
+        this.groups = groups;
+    }
+
+    /**
+     * 字段值为null的行不进入索引
+     */
+    static ConfigIndex build(IndexInfo info, List<IConfig> values) {
+        Map<Object, List<IConfig>> groups = new HashMap<>();
+        for (IConfig value : values) {
+            var key = info.key(value);
+            if (key == null) {
+                continue;
+            }
+            var group = groups.computeIfAbsent(key, k -> new ArrayList<>(1));
+            if (info.unique() && !group.isEmpty()) {
+                throw new LhotseException("唯一索引" + info.name() + "重复的值: " + key);
+            }
+            group.add(value);
+        }
+        groups.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        return new ConfigIndex(info, groups);
+    }
+
+    List<IConfig> find(Object key) {
+        return groups.getOrDefault(key, Collections.emptyList());
+    }
+
+    IConfig findUnique(Object key) {
+        if (!info.unique()) {
+            throw new LhotseException("不是唯一索引: " + info.name());
+        }
+        var group = groups.get(key);
+        return group == null ? null : group.get(0);
+    }
+}
+
+/**
+ * 索引定义, 每个配置类解析一次
+ *
+ * @param name     索引名
+ * @param unique   是否唯一
+ * @param accessor (Object)Object 字段访问方法
+ */
+record IndexInfo(String name, boolean unique, MethodHandle accessor) {
+
+    static List<IndexInfo> parse(Class<?> clazz) {
+        List<IndexInfo> ret = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (RecordComponent recordComponent : clazz.getRecordComponents()) {
+            var index = recordComponent.getAnnotation(Index.class);
+            var uniqueIndex = recordComponent.getAnnotation(UniqueIndex.class);
+            if (index != null && uniqueIndex != null) {
+                throw new LhotseException("@Index和@UniqueIndex不能同时使用, " + clazz.getName() + "." + recordComponent.getName());
+            }
+            if (index == null && uniqueIndex == null) {
+                continue;
+            }
+            var name = index != null ? index.name() : uniqueIndex.name();
+            if (name.isEmpty()) {
+                name = recordComponent.getName();
+            }
+            if (!names.add(name)) {
+                throw new LhotseException("重复的索引名" + name + ", " + clazz.getName());
+            }
+            try {
+                var accessor = RecordFactory.LOOKUP.unreflect(recordComponent.getAccessor())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                ret.add(new IndexInfo(name, uniqueIndex != null, accessor));
+            } catch (IllegalAccessException ex) {
+                throw new LhotseException("获取字段访问方法失败, " + clazz.getName() + "." + recordComponent.getName(), ex);
+            }
+        }
+        return List.copyOf(ret);
+    }
+
+    /**
+     * 遍历查找索引字段等于key的数据, 用于没有预建索引的{@link Storage}实现
+     */
+    static <T> List<T> scan(List<T> values, String indexName, Object key) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        var index = parse(values.get(0).getClass()).stream()
+                .filter(e -> e.name().equals(indexName))
+                .findFirst()
+                .orElseThrow(() -> new LhotseException("索引不存在: " + indexName));
+        return values.stream().filter(e -> key.equals(index.key(e))).toList();
+    }
+
+    Object key(Object config) {
+        try {
+            return accessor.invokeExact(config);
+        } catch (Throwable ex) {
+            throw new LhotseException("读取索引字段失败, " + name, ex);
+        }
+    }
+}
@@ -1,63 +1,96 @@
 package org.lhotse.config.core;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.Getter;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.lhotse.config.core.exception.LhotseException;
-
-import java.io.FileInputStream;
-import java.io.IOException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 文件解析器注册表, 内置JSON, Excel和CSV/TSV, 其他格式通过{@link ServiceLoader}发现{@link FileReader}实现<br>
+ * 多个解析器匹配同一文件时取{@link FileReader#priority()}最大的, 相同时内置解析器优先
+ */
+final class ConfigReader {
 
-@Getter
-enum ConfigReader {
-    JSON(new JsonFileReader()), EXCEL(new ExcelFileReader());
+    static final FileReader JSON = new JsonFileReader();
+    static final FileReader EXCEL = new ExcelFileReader();
+    static final FileReader CSV = new CsvFileReader();
 
-    private final FileReader fileReader;
+    private static volatile List<FileReader> readers;
 
-    ConfigReader(FileReader fileReader) {
-        this.fileReader = fileReader;
+    private ConfigReader() {
     }
 
     /**
-     * 获取文件解析器
+     * 所有解析器, 按优先级从高到低, 首次使用时加载
      */
-    static ConfigReader get(String filepath) {
-        Objects.requireNonNull(filepath, "文件路径不能为空");
-        for (ConfigReader value : values()) {
-            if (value.fileReader.match(filepath)) {
-                return value;
+    static List<FileReader> readers() {
+        var ret = readers;
+        if (ret == null) {
+            synchronized (ConfigReader.class) {
+                ret = readers;
+                if (ret == null) {
+                    List<FileReader> list = new ArrayList<>(List.of(JSON, EXCEL, CSV));
+                    ServiceLoader.load(FileReader.class).forEach(list::add);
+                    // 稳定排序, 优先级相同时保持注册顺序
+                    list.sort(Comparator.comparingInt(FileReader::priority).reversed());
+                    ret = List.copyOf(list);
+                    readers = ret;
+                }
             }
         }
-        throw new UnsupportedOperationException("不支持解析文件格式" + filepath);
+        return ret;
     }
-}
-
-interface FileReader {
 
     /**
-     * 读取文件内容
-     *
-     * @return map数组
+     * 获取文件解析器
      */
-    List<Map<String, String>> readFile(String path);
-
+    static FileReader get(String filepath) {
+        Objects.requireNonNull(filepath, "文件路径不能为空");
+        for (FileReader reader : readers()) {
+            if (reader.match(filepath)) {
+                return reader;
+            }
+        }
+        throw new UnsupportedOperationException("不支持解析文件格式" + filepath);
+    }
 
     /**
-     * 读取单配置内容
-     *
-     * @return key: map内容
+     * 配置路径对应的物理文件, 不支持的格式返回原路径
      */
-    Map<String, Map<String, String>> readFileForSingle(String path);
-
-    boolean match(String filepath);
+    static String sourceFile(String path) {
+        for (FileReader reader : readers()) {
+            if (reader.match(path)) {
+                return reader.sourceFile(path);
+            }
+        }
+        return path;
+    }
 }
 
 class JsonFileReader implements FileReader {
@@ -75,14 +108,27 @@ class JsonFileReader implements FileReader {
      */
     @Override
     public List<Map<String, String>> readFile(String path) {
-        var json = readFileContent(path);
-        try {
-            return JsonUtils.MAPPER.readValue(json, new TypeReference<List<Map<String, Object>>>() {
-                    }).stream()
-                    .map(this::read)
-                    .toList();
+        List<Map<String, String>> ret = new ArrayList<>();
+        readRows(path, ret::add);
+        return ret;
+    }
+
+    /**
+     * 按token流式读取, 不构建整个文件的对象树
+     */
+    @Override
+    public void readRows(String path, Consumer<Map<String, String>> consumer) {
+        try (var parser = JsonUtils.MAPPER.getFactory().createParser(new File(path))) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                expect(parser, token, JsonToken.START_OBJECT);
+                consumer.accept(readRow(parser));
+            }
+        } catch (LhotseException ex) {
+            throw ex;
         } catch (Exception ex) {
-            throw new LhotseException("解析Json失败", ex);
+            throw new LhotseException("解析Json失败" + path, ex);
         }
     }
 
@@ -99,39 +145,61 @@ class JsonFileReader implements FileReader {
      */
     @Override
     public Map<String, Map<String, String>> readFileForSingle(String path) {
-        var json = readFileContent(path);
-        try {
-            var map = JsonUtils.MAPPER.readValue(json, new TypeReference<Map<String, Map<String, Object>>>() {
-            });
+        try (var parser = JsonUtils.MAPPER.getFactory().createParser(new File(path))) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
             Map<String, Map<String, String>> ret = new HashMap<>();
-            map.forEach((k, v) -> ret.put(k, read(v)));
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var key = parser.currentName();
+                expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+                ret.put(key, readRow(parser));
+            }
             return ret;
+        } catch (LhotseException ex) {
+            throw ex;
         } catch (Exception ex) {
-            throw new LhotseException("解析Json失败", ex);
+            throw new LhotseException("解析Json失败" + path, ex);
         }
     }
 
-    Map<String, String> read(Map<String, Object> value) {
+    /**
+     * 读取一个对象, 调用前parser位于START_OBJECT
+     */
+    Map<String, String> readRow(JsonParser parser) throws IOException {
         Map<String, String> ret = new HashMap<>();
-        value.forEach((k, v) -> {
-            try {
-                if (v instanceof String str) {
-                    ret.put(k, str);
-                    return;
-                }
-                ret.put(k, JsonUtils.MAPPER.writeValueAsString(v));
-            } catch (Exception ex) {
-                throw new LhotseException("序列化Json失败", ex);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            var value = readValue(parser);
+            if (value != null) {
+                ret.put(name, value);
             }
-        });
+        }
         return ret;
     }
 
-    String readFileContent(String path) {
-        try {
-            return Files.readString(Path.of(path), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new LhotseException("文件读取失败", e);
+    /**
+     * 标量直接取原文, 对象和数组按token复制为紧凑的json文本, 交给自定义解析器
+     */
+    String readValue(JsonParser parser) throws IOException {
+        var token = parser.nextToken();
+        return switch (token) {
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getText();
+            case VALUE_TRUE -> "true";
+            case VALUE_FALSE -> "false";
+            case VALUE_NULL -> null;
+            case START_OBJECT, START_ARRAY -> {
+                var writer = new StringWriter();
+                try (var generator = JsonUtils.MAPPER.getFactory().createGenerator(writer)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                yield writer.toString();
+            }
+            default -> throw new LhotseException("不支持的Json内容" + token + " " + parser.currentLocation());
+        };
+    }
+
+    void expect(JsonParser parser, JsonToken token, JsonToken expected) {
+        if (token != expected) {
+            throw new LhotseException("Json格式错误, 期望" + expected + "实际" + token + " " + parser.currentLocation());
         }
     }
 
@@ -152,7 +220,17 @@ class JsonFileReader implements FileReader {
 
 class ExcelFileReader implements FileReader {
 
-    final DecimalFormat decimalFormat = new DecimalFormat();
+    /**
+     * DecimalFormat非线程安全, 并行读取时每个线程单独持有
+     */
+    final ThreadLocal<DecimalFormat> decimalFormat = ThreadLocal.withInitial(ExcelFileReader::newDecimalFormat);
+
+    /**
+     * 数字格式, 不使用千分位, 保留足够的小数位
+     */
+    static DecimalFormat newDecimalFormat() {
+        return new DecimalFormat("0.###############");
+    }
 
     /**
      * 文件格式<br>
@@ -163,9 +241,27 @@ class ExcelFileReader implements FileReader {
      */
     @Override
     public List<Map<String, String>> readFile(String path) {
+        return readFile(path, false);
+    }
+
+    @Override
+    public List<Map<String, String>> readFile(String path, boolean streaming) {
         var filePath = getPath(path);
         var sheet = getSheet(path).orElse(null);
-        return readContent(filePath, sheet);
+        if (!streaming) {
+            return readContent(filePath, sheet);
+        }
+        List<Map<String, String>> ret = new ArrayList<>();
+        streamContent(filePath, sheet, ret::add);
+        return ret;
+    }
+
+    /**
+     * 基于SAX逐行读取, 不构建整个sheet的DOM
+     */
+    @Override
+    public void readRows(String path, Consumer<Map<String, String>> consumer) {
+        streamContent(getPath(path), getSheet(path).orElse(null), consumer);
     }
 
     /**
@@ -179,40 +275,41 @@ class ExcelFileReader implements FileReader {
      */
     @Override
     public Map<String, Map<String, String>> readFileForSingle(String path) {
-        var filePath = getPath(path);
-        var sheet = getSheet(path).orElse(null);
-        var mapList = readContent(filePath, sheet);
-        Map<String, Map<String, String>> ret = new HashMap<>();
-        String currId = null;
-        Map<String, String> currMap = new HashMap<>();
-        for (var map : mapList) {
-            var id = map.get("id");
-            if (id != null && !id.isEmpty()) {
-                if (currId != null) {
-                    ret.put(currId, currMap);
-                    currMap = new HashMap<>();
-                }
-                currId = id;
-            }
-            if (currId == null) {
-                continue;
-            }
-            var key = map.get("key");
-            var value = map.get("value");
-            if (key == null || key.isEmpty()) {
-                continue;
-            }
-            currMap.put(key, value);
-        }
-        ret.put(currId, currMap);
+        return readFileForSingle(path, false);
+    }
+
+    @Override
+    public Map<String, Map<String, String>> readFileForSingle(String path, boolean streaming) {
+        return FileReader.toSingle(readFile(path, streaming));
+    }
+
+    /**
+     * 去掉sheet
+     */
+    @Override
+    public String sourceFile(String path) {
+        return getPath(path);
+    }
 
+    /**
+     * 文件只打开和解析一次, 不带sheet的路径取第一个启用的sheet
+     */
+    @Override
+    public Map<String, List<Map<String, String>>> readSheets(String file, Collection<String> paths, boolean streaming) {
+        Map<String, List<String>> sheetPaths = new HashMap<>();
+        for (String path : paths) {
+            sheetPaths.computeIfAbsent(getSheet(path).orElse(null), k -> new ArrayList<>()).add(path);
+        }
+        var sheets = streaming ? streamSheets(file, sheetPaths.keySet()) : readWorkbook(file, sheetPaths.keySet());
+        Map<String, List<Map<String, String>>> ret = new HashMap<>();
+        sheetPaths.forEach((sheet, list) -> list.forEach(path -> ret.put(path, sheets.getOrDefault(sheet, Collections.emptyList()))));
         return ret;
     }
 
     /**
      * 获取文件路径
      */
-    private String getPath(String path) {
+    static String getPath(String path) {
         var i = path.lastIndexOf(":");
         if (i < 6) {
             return path;
@@ -220,7 +317,7 @@ class ExcelFileReader implements FileReader {
         return path.substring(0, i);
     }
 
-    private Optional<String> getSheet(String path) {
+    static Optional<String> getSheet(String path) {
         var i = path.lastIndexOf(":");
         if (i < 6) {
             return Optional.empty();
@@ -231,32 +328,55 @@ class ExcelFileReader implements FileReader {
     List<Map<String, String>> readContent(String path, String sheetName) {
         try (var fileInputStream = new FileInputStream(path);
              Workbook workbook = new XSSFWorkbook(fileInputStream)) {
-            Sheet sheet = null;
-            if (sheetName != null) {
-                sheet = workbook.getSheet(sheetName);
-            } else {
-                // 取第0个
-                for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                    sheet = workbook.getSheetAt(i);
-                    if (sheetEnable(sheet)) {
-                        break;
-                    }
-                }
-            }
-            if (sheet == null || !sheetEnable(sheet)) {
-                return Collections.emptyList();
-            }
-            // 获取title
-            var sheetTitles = getSheetTitles(sheet);
-            if (sheetTitles.isEmpty()) {
-                return Collections.emptyList();
-            }
-            return getContent(sheet, sheetTitles);
+            return readSheet(workbook, sheetName);
         } catch (Exception ex) {
             throw new LhotseException("读取Excel失败" + path + " : " + sheetName, ex);
         }
     }
 
+    /**
+     * 读取多个sheet, 文件只打开一次
+     *
+     * @param sheetNames sheet名, null表示第一个启用的sheet
+     * @return sheet名: 内容
+     */
+    Map<String, List<Map<String, String>>> readWorkbook(String path, Set<String> sheetNames) {
+        try (var fileInputStream = new FileInputStream(path);
+             Workbook workbook = new XSSFWorkbook(fileInputStream)) {
+            Map<String, List<Map<String, String>>> ret = new HashMap<>();
+            for (String sheetName : sheetNames) {
+                ret.put(sheetName, readSheet(workbook, sheetName));
+            }
+            return ret;
+        } catch (Exception ex) {
+            throw new LhotseException("读取Excel失败" + path + " : " + sheetNames, ex);
+        }
+    }
+
+    List<Map<String, String>> readSheet(Workbook workbook, String sheetName) {
+        Sheet sheet = null;
+        if (sheetName != null) {
+            sheet = workbook.getSheet(sheetName);
+        } else {
+            // 取第0个
+            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                sheet = workbook.getSheetAt(i);
+                if (sheetEnable(sheet)) {
+                    break;
+                }
+            }
+        }
+        if (sheet == null || !sheetEnable(sheet)) {
+            return Collections.emptyList();
+        }
+        // 获取title
+        var sheetTitles = getSheetTitles(sheet);
+        if (sheetTitles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return getContent(sheet, sheetTitles);
+    }
+
     /**
      * sheet 是否有用
      */
@@ -301,7 +421,7 @@ class ExcelFileReader implements FileReader {
                 ret.add("");
             } else {
                 switch (cell.getCellType()) {
-                    case NUMERIC -> ret.add(decimalFormat.format(cell.getNumericCellValue()));
+                    case NUMERIC -> ret.add(decimalFormat.get().format(cell.getNumericCellValue()));
                     case STRING -> ret.add(cell.getStringCellValue().trim());
                     case BOOLEAN -> ret.add(String.valueOf(cell.getBooleanCellValue()));
                     default -> ret.add("");
@@ -330,7 +450,7 @@ class ExcelFileReader implements FileReader {
                 }
                 switch (cell.getCellType()) {
                     case NUMERIC -> {
-                        map.put(titles.get(i), decimalFormat.format(cell.getNumericCellValue()));
+                        map.put(titles.get(i), decimalFormat.get().format(cell.getNumericCellValue()));
                         emptyRow = false;
                     }
                     case STRING -> {
@@ -352,6 +472,228 @@ class ExcelFileReader implements FileReader {
         return ret;
     }
 
+    /**
+     * 流式读取sheet内容, 与{@link #readContent(String, String)}保持相同的启用行和标题行规则
+     *
+     * @param sheetName 为空时取第一个启用的sheet
+     */
+    void streamContent(String path, String sheetName, Consumer<Map<String, String>> consumer) {
+        try (var pkg = OPCPackage.open(path, PackageAccess.READ)) {
+            var reader = new XSSFReader(pkg);
+            var strings = new ReadOnlySharedStringsTable(pkg, false);
+            var sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream inputStream = sheets.next()) {
+                    if (sheetName != null && !sheetName.equals(sheets.getSheetName())) {
+                        continue;
+                    }
+                    var handler = new SheetHandler(strings, consumer);
+                    handler.parse(inputStream);
+                    if (sheetName != null || handler.enable) {
+                        return;
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            throw new LhotseException("读取Excel失败" + path + " : " + sheetName, ex);
+        }
+    }
+
+    /**
+     * 流式读取多个sheet, 按文件中顺序只遍历一次, 需要的sheet都读取后停止
+     *
+     * @param sheetNames sheet名, null表示第一个启用的sheet
+     * @return sheet名: 内容
+     */
+    Map<String, List<Map<String, String>>> streamSheets(String path, Set<String> sheetNames) {
+        Map<String, List<Map<String, String>>> ret = new HashMap<>();
+        try (var pkg = OPCPackage.open(path, PackageAccess.READ)) {
+            var reader = new XSSFReader(pkg);
+            var strings = new ReadOnlySharedStringsTable(pkg, false);
+            var sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext() && ret.size() < sheetNames.size()) {
+                try (InputStream inputStream = sheets.next()) {
+                    var name = sheets.getSheetName();
+                    boolean named = sheetNames.contains(name) && !ret.containsKey(name);
+                    boolean first = sheetNames.contains(null) && !ret.containsKey(null);
+                    if (!named && !first) {
+                        continue;
+                    }
+                    List<Map<String, String>> rows = new ArrayList<>();
+                    var handler = new SheetHandler(strings, rows::add);
+                    handler.parse(inputStream);
+                    if (named) {
+                        ret.put(name, rows);
+                    }
+                    if (first && handler.enable) {
+                        ret.put(null, rows);
+                    }
+                }
+            }
+            return ret;
+        } catch (Exception ex) {
+            throw new LhotseException("读取Excel失败" + path + " : " + sheetNames, ex);
+        }
+    }
+
+    /**
+     * sheet的SAX解析, 第0行为启用标记, 第2行为标题, 第3行开始为数据
+     */
+    static class SheetHandler extends DefaultHandler {
+
+        /**
+         * sheet未启用时中断解析
+         */
+        static final SAXException DISABLED = new SAXException("sheet未启用");
+
+        final ReadOnlySharedStringsTable strings;
+        final Consumer<Map<String, String>> consumer;
+        final DecimalFormat decimalFormat = newDecimalFormat();
+        final StringBuilder text = new StringBuilder();
+        final List<String> titles = new ArrayList<>();
+
+        boolean enable;
+        int rowIndex = -1;
+        int column;
+        String cellType;
+        boolean formula;
+        boolean readText;
+        Map<String, String> row;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, Consumer<Map<String, String>> consumer) {
+            this.strings = strings;
+            this.consumer = consumer;
+        }
+
+        void parse(InputStream inputStream) throws Exception {
+            var xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(this);
+            try {
+                xmlReader.parse(new InputSource(inputStream));
+            } catch (SAXException ex) {
+                if (ex != DISABLED) {
+                    throw ex;
+                }
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "row" -> {
+                    var r = attributes.getValue("r");
+                    int index = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                    if (index > 0 && !enable) {
+                        throw DISABLED;
+                    }
+                    rowIndex = index;
+                    column = -1;
+                    row = rowIndex >= 3 ? new HashMap<>() : null;
+                }
+                case "c" -> {
+                    var r = attributes.getValue("r");
+                    column = r == null ? column + 1 : new CellReference(r).getCol();
+                    cellType = attributes.getValue("t");
+                    formula = false;
+                    text.setLength(0);
+                }
+                case "f" -> formula = true;
+                case "v", "t" -> readText = true;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (readText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> readText = false;
+                case "c" -> endCell();
+                case "row" -> endRow();
+                case "sheetData" -> {
+                    if (!enable) {
+                        throw DISABLED;
+                    }
+                }
+            }
+        }
+
+        void endCell() {
+            if (rowIndex == 0) {
+                if (column == 0) {
+                    enable = cellEnable();
+                }
+                return;
+            }
+            if (rowIndex == 2) {
+                var value = cellValue();
+                while (titles.size() < column) {
+                    titles.add("");
+                }
+                titles.add(value == null ? "" : value);
+                return;
+            }
+            if (row == null || column >= titles.size()) {
+                return;
+            }
+            var value = cellValue();
+            if (value != null) {
+                row.put(titles.get(column), value);
+            }
+        }
+
+        void endRow() {
+            if (row == null) {
+                return;
+            }
+            row.remove("");
+            if (!row.isEmpty()) {
+                consumer.accept(row);
+            }
+            row = null;
+        }
+
+        /**
+         * 与{@link ExcelFileReader#sheetEnable(Sheet)}规则一致
+         */
+        boolean cellEnable() {
+            if (formula || text.isEmpty()) {
+                return false;
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                return Double.parseDouble(text.toString()) > 0;
+            }
+            return switch (cellType) {
+                case "s" -> "true".equalsIgnoreCase(strings.getItemAt(Integer.parseInt(text.toString())).getString());
+                case "inlineStr" -> "true".equalsIgnoreCase(text.toString());
+                case "b" -> "1".equals(text.toString());
+                default -> false;
+            };
+        }
+
+        /**
+         * 单元格内容, 公式和空单元格返回null
+         */
+        String cellValue() {
+            if (formula || text.isEmpty()) {
+                return null;
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                return decimalFormat.format(Double.parseDouble(text.toString()));
+            }
+            return switch (cellType) {
+                case "s" -> strings.getItemAt(Integer.parseInt(text.toString())).getString().trim();
+                case "inlineStr" -> text.toString().trim();
+                case "b" -> String.valueOf("1".equals(text.toString()));
+                default -> null;
+            };
+        }
+    }
 
     @Override
     public boolean match(String filepath) {
@@ -363,3 +705,303 @@ class ExcelFileReader implements FileReader {
         return filepath.endsWith(".xlsx");
     }
 }
+
+/**
+ * csv和tsv, 文件读入字节缓冲区后直接在字节上切分单元格, 只有用到的单元格解码为字符串<br>
+ * 超过{@link #MAP_THRESHOLD}的文件映射到内存, 映射在GC前不会释放, Windows上期间无法替换或删除该文件<br>
+ * 与Excel相同的表头格式: 第0行第一个单元格为启用标记, 第1行为描述, 第2行为标题, 第3行开始为数据<br>
+ * 支持双引号包裹的单元格, 引号内可包含分隔符和换行, 两个双引号表示一个双引号
+ */
+class CsvFileReader implements FileReader {
+
+    static final byte QUOTE = '"';
+    /**
+     * 小于等于该大小的文件读入堆内, 读取后不占用文件
+     */
+    static final long MAP_THRESHOLD = 64L << 20;
+
+    @Override
+    public List<Map<String, String>> readFile(String path) {
+        List<Map<String, String>> ret = new ArrayList<>();
+        readRows(path, ret::add);
+        return ret;
+    }
+
+    @Override
+    public void readRows(String path, Consumer<Map<String, String>> consumer) {
+        readCells(path, new CellConsumer() {
+            Map<String, String> row = new HashMap<>();
+
+            @Override
+            public void cell(String title, CharSequence text, int start, int end) {
+                row.put(title, text.subSequence(start, end).toString());
+            }
+
+            @Override
+            public void endRow() {
+                consumer.accept(row);
+                row = new HashMap<>();
+            }
+        });
+    }
+
+    /**
+     * 单元格解码到复用的字符缓冲区, 不创建字符串
+     */
+    @Override
+    public void readCells(String path, CellConsumer consumer) {
+        try (var channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new LhotseException("文件过大" + path);
+            }
+            var buffer = read(channel, MAP_THRESHOLD);
+            new Tokenizer(buffer, path.endsWith(".tsv") ? (byte) '\t' : (byte) ',').read(consumer);
+        } catch (LhotseException ex) {
+            throw ex;
+        } catch (Exception | InternalError ex) {
+            // 映射期间文件被截断时访问内存抛出InternalError
+            throw new LhotseException("读取csv失败" + path, ex);
+        }
+    }
+
+    /**
+     * 读取整个文件, 超过阈值时映射到内存
+     */
+    static ByteBuffer read(FileChannel channel, long mapThreshold) throws IOException {
+        var size = channel.size();
+        if (size > mapThreshold) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        var buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // 读到文件末尾或缓冲区满
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public Map<String, Map<String, String>> readFileForSingle(String path) {
+        return FileReader.toSingle(readFile(path));
+    }
+
+    @Override
+    public boolean match(String filepath) {
+        return filepath.endsWith(".csv") || filepath.endsWith(".tsv");
+    }
+
+    /**
+     * 在文件的字节上逐行切分
+     */
+    static final class Tokenizer {
+
+        final ByteBuffer buffer;
+        final byte separator;
+        final int limit;
+        int position;
+        /**
+         * 当前单元格区间[start, end), 以及是否包含转义的双引号
+         */
+        int start;
+        int end;
+        boolean escaped;
+        /**
+         * 复用的解码缓冲区
+         */
+        CharBuffer chars = CharBuffer.allocate(256);
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        Tokenizer(ByteBuffer buffer, byte separator) {
+            this.buffer = buffer;
+            this.separator = separator;
+            this.limit = buffer.limit();
+            // UTF-8 BOM
+            if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+
+        void read(CellConsumer consumer) {
+            // 第0行
+            if (position >= limit) {
+                return;
+            }
+            boolean more = nextCell();
+            if (!enable()) {
+                return;
+            }
+            if (more) {
+                skipRow();
+            }
+            // 第1行描述
+            skipRow();
+            // 第2行标题
+            List<String> titles = new ArrayList<>();
+            more = position < limit;
+            while (more) {
+                more = nextCell();
+                titles.add(cell());
+            }
+            while (position < limit) {
+                boolean empty = true;
+                int column = 0;
+                more = true;
+                while (more) {
+                    more = nextCell();
+                    if (column < titles.size() && !titles.get(column).isEmpty() && decode()) {
+                        consumer.cell(titles.get(column), chars, 0, chars.limit());
+                        empty = false;
+                    }
+                    column++;
+                }
+                if (!empty) {
+                    consumer.endRow();
+                }
+            }
+        }
+
+        /**
+         * 与{@link ExcelFileReader#sheetEnable}规则一致, 文本true或大于0的数字
+         */
+        boolean enable() {
+            var value = cell();
+            if ("true".equalsIgnoreCase(value)) {
+                return true;
+            }
+            try {
+                return Double.parseDouble(value) > 0;
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+
+        void skipRow() {
+            boolean more = position < limit;
+            while (more) {
+                more = nextCell();
+            }
+        }
+
+        /**
+         * 切分下一个单元格
+         *
+         * @return 当前行是否还有单元格
+         */
+        boolean nextCell() {
+            escaped = false;
+            int i = position;
+            if (i < limit && buffer.get(i) == QUOTE) {
+                start = ++i;
+                while (true) {
+                    if (i >= limit) {
+                        throw new LhotseException("csv引号未闭合, 位置" + (start - 1));
+                    }
+                    if (buffer.get(i) == QUOTE) {
+                        if (i + 1 < limit && buffer.get(i + 1) == QUOTE) {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                end = i++;
+                // 闭合引号到分隔符之间的内容忽略
+                while (i < limit && buffer.get(i) != separator && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                    i++;
+                }
+            } else {
+                start = i;
+                while (i < limit && buffer.get(i) != separator && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                    i++;
+                }
+                end = i;
+            }
+            if (i < limit && buffer.get(i) == separator) {
+                position = i + 1;
+                return true;
+            }
+            // 行尾, 兼容\r\n
+            if (i < limit && buffer.get(i) == '\r') {
+                i++;
+            }
+            if (i < limit && buffer.get(i) == '\n') {
+                i++;
+            }
+            position = i;
+            return false;
+        }
+
+        /**
+         * 解码当前单元格, 去掉两侧空白
+         */
+        String cell() {
+            int s = start;
+            int e = end;
+            while (s < e && (buffer.get(s) & 0xFF) <= ' ') {
+                s++;
+            }
+            while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') {
+                e--;
+            }
+            if (s == e) {
+                return "";
+            }
+            var bytes = new byte[e - s];
+            buffer.get(s, bytes);
+            var ret = new String(bytes, StandardCharsets.UTF_8);
+            return escaped ? ret.replace("\"\"", "\"") : ret;
+        }
+
+        /**
+         * 当前单元格去掉两侧空白后解码到{@link #chars}
+         *
+         * @return 是否非空
+         */
+        boolean decode() {
+            int s = start;
+            int e = end;
+            while (s < e && (buffer.get(s) & 0xFF) <= ' ') {
+                s++;
+            }
+            while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') {
+                e--;
+            }
+            if (s == e) {
+                return false;
+            }
+            // UTF-8每个字节最多解码为一个字符
+            if (chars.capacity() < e - s) {
+                chars = CharBuffer.allocate(Math.max(e - s, chars.capacity() * 2));
+            }
+            chars.clear();
+            decoder.reset();
+            decoder.decode(buffer.slice(s, e - s), chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            if (escaped) {
+                unescape();
+            }
+            return true;
+        }
+
+        /**
+         * 两个双引号替换为一个
+         */
+        void unescape() {
+            int n = chars.limit();
+            int j = 0;
+            for (int i = 0; i < n; i++, j++) {
+                char c = chars.get(i);
+                chars.put(j, c);
+                if (c == '"' && i + 1 < n && chars.get(i + 1) == '"') {
+                    i++;
+                }
+            }
+            chars.limit(j);
+        }
+    }
+}
+
@@ -0,0 +1,63 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.annotations.Ref;
+
+import java.util.Objects;
+
+/**
+ * 配置表之间的引用, 加载时解析为目标对象, 访问时不再查询配置表<br>
+ * 字段用{@link Ref}指定目标配置表, 单元格为空时字段为null<br>
+ * 引用只指向同一数据版本的对象, 目标热更新后引用方对应的行会重新创建, 旧快照中的引用不变
+ *
+ * @param <T> 目标配置类
+ */
+public final class ConfigRef<T extends IConfig<?>> {
+
+    final Class<?> type;
+    final Object id;
+    /**
+     * 加载时设置, 发布后不再修改
+     */
+    T target;
+
+    ConfigRef(Class<?> type, Object id) {
+        this.type = type;
+        this.id = Objects.requireNonNull(id);
+    }
+
+    /**
+     * 目标配置类
+     */
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * 目标id
+     */
+    public Object id() {
+        return id;
+    }
+
+    /**
+     * 目标对象, 加载成功后不为null
+     */
+    public T get() {
+        return target;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ConfigRef<?> other && type == other.type && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "#" + id;
+    }
+}
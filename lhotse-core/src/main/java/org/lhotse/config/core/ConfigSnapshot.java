@@ -0,0 +1,127 @@
+package org.lhotse.config.core;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 某一版本配置表数据的快照<br>
+ * 持有快照后的所有查询都基于同一版本, 热更新只替换{@link GlobalDataStorage}中的引用, 不影响已持有的快照, 查询无需加锁
+ */
+public final class ConfigSnapshot {
+
+    private final DataContainer container;
+
+    ConfigSnapshot(DataContainer container) {
+        this.container = container;
+    }
+
+    /**
+     * 数据版本, 每次刷新加1
+     */
+    public long generation() {
+        return container.generation;
+    }
+
+    /**
+     * 获取所有数据, 按文件中行顺序的不可变列表, 同一版本每次返回同一对象
+     */
+    @Nonnull
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <ID extends Comparable<ID>, Config extends IConfig<ID>> List<Config> list(@Nonnull Class<Config> clazz) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        return (List) table.values;
+    }
+
+    /**
+     * 获取所有数据, 按id排序的不可变列表
+     */
+    @Nonnull
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <ID extends Comparable<ID>, Config extends IConfig<ID>> List<Config> listSortedById(@Nonnull Class<Config> clazz) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        return (List) table.sortedValues();
+    }
+
+    /**
+     * 获取配置表数据
+     */
+    @SuppressWarnings("unchecked")
+    public <ID extends Comparable<ID>, Config extends IConfig<ID>> Optional<Config> get(@Nonnull Class<Config> clazz, @Nonnull ID id) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(((Config) table.get(id)));
+    }
+
+    /**
+     * 获取配置表数据, id不装箱
+     */
+    @SuppressWarnings("unchecked")
+    public <Config extends IConfig<?>> Optional<Config> get(@Nonnull Class<Config> clazz, int id) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(((Config) table.getInt(id)));
+    }
+
+    /**
+     * 获取配置表数据, id不装箱
+     */
+    @SuppressWarnings("unchecked")
+    public <Config extends IConfig<?>> Optional<Config> get(@Nonnull Class<Config> clazz, long id) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(((Config) table.getLong(id)));
+    }
+
+    /**
+     * 根据{@link org.lhotse.config.core.annotations.Index}查询, 返回按文件中行顺序的不可变列表
+     *
+     * @param indexName 索引名
+     * @param key       字段值, 类型与字段一致, 基础类型使用包装类
+     */
+    @Nonnull
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <Config extends IConfig<?>> List<Config> findBy(@Nonnull Class<Config> clazz, @Nonnull String indexName, @Nonnull Object key) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        return (List) table.index(indexName).find(key);
+    }
+
+    /**
+     * 根据{@link org.lhotse.config.core.annotations.UniqueIndex}查询
+     *
+     * @param indexName 索引名
+     * @param key       字段值, 类型与字段一致, 基础类型使用包装类
+     */
+    @SuppressWarnings("unchecked")
+    public <Config extends IConfig<?>> Optional<Config> findUniqueBy(@Nonnull Class<Config> clazz, @Nonnull String indexName, @Nonnull Object key) {
+        var table = container.table(clazz);
+        if (table == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(((Config) table.index(indexName).findUnique(key)));
+    }
+
+    /**
+     * 获取单配置表数据
+     */
+    @SuppressWarnings("unchecked")
+    public <Config> Optional<Config> getSingle(@Nonnull Class<Config> clazz) {
+        return Optional.ofNullable(((Config) container.singleConfigData.get(clazz)));
+    }
+}
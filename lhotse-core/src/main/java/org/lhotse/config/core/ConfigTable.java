@@ -0,0 +1,418 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单张配置表某一版本的数据, 根据id类型选择查询结构
+ */
+@SuppressWarnings("rawtypes")
+abstract class ConfigTable {
+
+    /**
+     * 按文件中行顺序的数据
+     */
+    final List<IConfig> values;
+    /**
+     * 索引名: 索引
+     */
+    final Map<String, ConfigIndex> indexes;
+    /**
+     * 按id排序的数据, 首次使用时创建
+     */
+    private volatile List<IConfig> sortedValues;
+
+    ConfigTable(List<IConfig> values, List<IndexInfo> indexInfos) {
+        this.values = values;
+        Map<String, ConfigIndex> indexes = HashMap.newHashMap(indexInfos.size());
+        for (IndexInfo indexInfo : indexInfos) {
+            indexes.put(indexInfo.name(), ConfigIndex.build(indexInfo, values));
+        }
+        this.indexes = indexes;
+    }
+
+    /**
+     * 根据id查询, 不存在返回null
+     */
+    abstract IConfig get(Object id);
+
+    IConfig getInt(int id) {
+        return get(id);
+    }
+
+    IConfig getLong(long id) {
+        return get(id);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * 按id排序的不可变列表, 每个版本只排序一次, 并发首次调用时可能重复排序, 结果相同
+     */
+    @SuppressWarnings("unchecked")
+    List<IConfig> sortedValues() {
+        var ret = sortedValues;
+        if (ret == null) {
+            var array = values.toArray(new IConfig[0]);
+            Arrays.sort(array, (a, b) -> ((Comparable) a.id()).compareTo(b.id()));
+            ret = Collections.unmodifiableList(Arrays.asList(array));
+            sortedValues = ret;
+        }
+        return ret;
+    }
+
+    ConfigIndex index(String name) {
+        var index = indexes.get(name);
+        if (index == null) {
+            throw new LhotseException("索引不存在: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * 创建配置表
+     *
+     * @param idType     id类型, Integer和Long使用基础类型存储
+     * @param indexInfos 二级索引
+     * @param values     按文件中行顺序的数据
+     */
+    static ConfigTable of(Class<?> idType, List<IndexInfo> indexInfos, List<IConfig> values) {
+        values = Collections.unmodifiableList(values);
+        if (idType == Integer.class) {
+            return IntConfigTable.of(values, indexInfos);
+        }
+        if (idType == Long.class) {
+            return new LongConfigTable(values, indexInfos);
+        }
+        return new HashConfigTable(values, indexInfos);
+    }
+
+    static ConfigTable of(Class<?> idType, List<IConfig> values) {
+        return of(idType, List.of(), values);
+    }
+
+    static Object requireId(IConfig value) {
+        var id = value.id();
+        if (id == null) {
+            throw new LhotseException("id不能为空: " + value);
+        }
+        return id;
+    }
+
+    static LhotseException duplicateId(Object id) {
+        return new LhotseException("重复的id: " + id);
+    }
+
+    /**
+     * 通用id
+     */
+    static final class HashConfigTable extends ConfigTable {
+
+        final Map<Object, IConfig> map;
+
+        HashConfigTable(List<IConfig> values, List<IndexInfo> indexInfos) {
+            super(values, indexInfos);
+            Map<Object, IConfig> map = HashMap.newHashMap(values.size());
+            for (IConfig value : values) {
+                var id = requireId(value);
+                if (map.put(id, value) != null) {
+                    throw duplicateId(id);
+                }
+            }
+            this.map = map;
+        }
+
+        @Override
+        IConfig get(Object id) {
+            return map.get(id);
+        }
+    }
+
+    /**
+     * int id, id连续时使用数组, 否则使用开放寻址哈希表
+     */
+    static abstract class IntConfigTable extends ConfigTable {
+
+        IntConfigTable(List<IConfig> values, List<IndexInfo> indexInfos) {
+            super(values, indexInfos);
+        }
+
+        static IntConfigTable of(List<IConfig> values, List<IndexInfo> indexInfos) {
+            if (values.isEmpty()) {
+                return new IntHashConfigTable(values, indexInfos);
+            }
+            long min = Integer.MAX_VALUE;
+            long max = Integer.MIN_VALUE;
+            for (IConfig value : values) {
+                int id = (Integer) requireId(value);
+                min = Math.min(min, id);
+                max = Math.max(max, id);
+            }
+            // 空位不超过一半时用数组
+            if (max - min + 1 <= values.size() * 2L + 16) {
+                return new DenseIntConfigTable(values, indexInfos, (int) min, (int) (max - min + 1));
+            }
+            return new IntHashConfigTable(values, indexInfos);
+        }
+
+        @Override
+        IConfig get(Object id) {
+            if (id instanceof Integer i) {
+                return getInt(i);
+            }
+            return null;
+        }
+
+        @Override
+        IConfig getLong(long id) {
+            if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+                return null;
+            }
+            return getInt((int) id);
+        }
+    }
+
+    static final class DenseIntConfigTable extends IntConfigTable {
+
+        final int base;
+        final IConfig[] slots;
+
+        DenseIntConfigTable(List<IConfig> values, List<IndexInfo> indexInfos, int base, int length) {
+            super(values, indexInfos);
+            this.base = base;
+            this.slots = new IConfig[length];
+            for (IConfig value : values) {
+                int index = (Integer) value.id() - base;
+                if (slots[index] != null) {
+                    throw duplicateId(value.id());
+                }
+                slots[index] = value;
+            }
+        }
+
+        @Override
+        IConfig getInt(int id) {
+            int index = id - base;
+            if (index < 0 || index >= slots.length) {
+                return null;
+            }
+            return slots[index];
+        }
+    }
+
+    static final class IntHashConfigTable extends IntConfigTable {
+
+        final int[] keys;
+        final IConfig[] slots;
+        final int mask;
+
+        IntHashConfigTable(List<IConfig> values, List<IndexInfo> indexInfos) {
+            super(values, indexInfos);
+            int capacity = Integer.highestOneBit(Math.max(values.size(), 1) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.slots = new IConfig[capacity];
+            this.mask = capacity - 1;
+            for (IConfig value : values) {
+                int id = (Integer) value.id();
+                int index = hash(id) & mask;
+                while (slots[index] != null) {
+                    if (keys[index] == id) {
+                        throw duplicateId(id);
+                    }
+                    index = (index + 1) & mask;
+                }
+                keys[index] = id;
+                slots[index] = value;
+            }
+        }
+
+        static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        IConfig getInt(int id) {
+            int index = hash(id) & mask;
+            IConfig value;
+            while ((value = slots[index]) != null) {
+                if (keys[index] == id) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * long id, 使用开放寻址哈希表
+     */
+    static final class LongConfigTable extends ConfigTable {
+
+        final long[] keys;
+        final IConfig[] slots;
+        final int mask;
+
+        LongConfigTable(List<IConfig> values, List<IndexInfo> indexInfos) {
+            super(values, indexInfos);
+            int capacity = Integer.highestOneBit(Math.max(values.size(), 1) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.slots = new IConfig[capacity];
+            this.mask = capacity - 1;
+            for (IConfig value : values) {
+                long id = (Long) requireId(value);
+                int index = hash(id) & mask;
+                while (slots[index] != null) {
+                    if (keys[index] == id) {
+                        throw duplicateId(id);
+                    }
+                    index = (index + 1) & mask;
+                }
+                keys[index] = id;
+                slots[index] = value;
+            }
+        }
+
+        static int hash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        IConfig get(Object id) {
+            if (id instanceof Long l) {
+                return getLong(l);
+            }
+            return null;
+        }
+
+        @Override
+        IConfig getInt(int id) {
+            return getLong(id);
+        }
+
+        @Override
+        IConfig getLong(long id) {
+            int index = hash(id) & mask;
+            IConfig value;
+            while ((value = slots[index]) != null) {
+                if (keys[index] == id) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 延迟创建对象的配置表, 加载时按id字段校验并试创建一个对象, 首次查询时创建其余对象和索引, 每个版本只创建一次<br>
+     * 试创建的对象校验id()与id字段一致, 创建整表时仍按id()校验重复<br>
+     * 构造方法中对个别行的校验延迟到首次查询时抛出, 失败后每次查询都会重试并抛出
+     */
+    static final class LazyConfigTable extends ConfigTable {
+
+        final ConfigTypeInfo typeInfo;
+        /**
+         * 已解析的行, 创建对象后释放
+         */
+        private List<DataContainer.ConfigData> rows;
+        private volatile ConfigTable table;
+
+        LazyConfigTable(ConfigTypeInfo typeInfo, List<DataContainer.ConfigData> rows) {
+            super(Collections.emptyList(), List.of());
+            this.typeInfo = typeInfo;
+            this.rows = rows;
+            int idIndex = typeInfo.idIndex();
+            Set<Object> ids = HashSet.newHashSet(rows.size());
+            for (DataContainer.ConfigData row : rows) {
+                // 复用旧版本的行已有对象
+                var id = row.args != null ? row.args[idIndex] : ((IConfig) row.data).id();
+                if (id == null) {
+                    throw new LhotseException("id不能为空");
+                }
+                if (!ids.add(id)) {
+                    throw duplicateId(id);
+                }
+            }
+            // 构造方法无法调用等整表的错误在加载时报出, 对象保留到创建整表时使用
+            for (DataContainer.ConfigData row : rows) {
+                if (row.data == null) {
+                    var id = row.args[idIndex];
+                    var probe = (IConfig) row.toObject();
+                    // 构造方法或id()改写了id时, 按参数校验的id与查询使用的id()不一致
+                    if (!id.equals(probe.id())) {
+                        throw new LhotseException("id()与id字段不一致 " + id + ", " + probe.id() + ", " + typeInfo.clazz().getName());
+                    }
+                    break;
+                }
+            }
+        }
+
+        /**
+         * 创建对象, 并发调用时只创建一次
+         */
+        ConfigTable resolve() {
+            var ret = table;
+            if (ret == null) {
+                synchronized (this) {
+                    ret = table;
+                    if (ret == null) {
+                        List<IConfig> values = rows.stream().map(e -> (IConfig) e.toObject()).toList();
+                        ret = ConfigTable.of(typeInfo.idType(), typeInfo.indexInfos(), values);
+                        table = ret;
+                        rows = null;
+                    }
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * 已创建的配置表, 未创建返回null
+         */
+        ConfigTable resolved() {
+            return table;
+        }
+
+        @Override
+        IConfig get(Object id) {
+            return resolve().get(id);
+        }
+
+        @Override
+        IConfig getInt(int id) {
+            return resolve().getInt(id);
+        }
+
+        @Override
+        IConfig getLong(long id) {
+            return resolve().getLong(id);
+        }
+
+        @Override
+        int size() {
+            return resolve().size();
+        }
+
+        @Override
+        List<IConfig> sortedValues() {
+            return resolve().sortedValues();
+        }
+
+        @Override
+        ConfigIndex index(String name) {
+            return resolve().index(name);
+        }
+    }
+}
@@ -1,34 +1,83 @@
 package org.lhotse.config.core;
 
 import org.lhotse.config.core.annotations.SingleConfig;
+import org.lhotse.config.core.annotations.StorageConfig;
 import org.lhotse.config.core.exception.LhotseException;
 
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
-import java.lang.reflect.RecordComponent;
+import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @SuppressWarnings("rawtypes")
 class DataContainer {
 
-    final Map<Class<?>, Map<?, IConfig>> multiConfigData;
+    final Map<Class<?>, ConfigTable> multiConfigData;
     final Map<Class<?>, Object> singleConfigData;
+    /**
+     * 多数据配置表每行原始内容的哈希, 与{@link ConfigTable#values}顺序一致, 刷新时内容未变的行复用旧对象
+     */
+    final Map<Class<?>, long[]> rowHashes;
+    /**
+     * 数据版本, 每次刷新加1
+     */
+    final long generation;
+    /**
+     * 当前版本的快照, 每个版本只创建一次
+     */
+    final ConfigSnapshot snapshot = new ConfigSnapshot(this);
 
     DataContainer() {
         this.multiConfigData = Collections.emptyMap();
         this.singleConfigData = Collections.emptyMap();
+        this.rowHashes = Collections.emptyMap();
+        this.generation = 0;
     }
 
 
-    DataContainer(Map<Class<?>, List<IConfig>> multiConfigData, Map<Class<?>, Object> singleConfigData) {
-        Map<Class<?>, Map<?, IConfig>> map = new HashMap<>();
-        multiConfigData.forEach((k, v) -> {
-            map.put(k, v.stream().collect(Collectors.toUnmodifiableMap(IConfig::id, e -> e)));
-        });
-        this.multiConfigData = Collections.unmodifiableMap(map);
+    DataContainer(Map<Class<?>, ConfigTable> multiConfigData, Map<Class<?>, Object> singleConfigData,
+                  Map<Class<?>, long[]> rowHashes, long generation) {
+        this.multiConfigData = multiConfigData;
         this.singleConfigData = singleConfigData;
+        this.rowHashes = rowHashes;
+        this.generation = generation;
+    }
+
+    /**
+     * 获取配置表, 延迟创建的表在首次获取时创建对象
+     */
+    ConfigTable table(Class<?> clazz) {
+        var table = multiConfigData.get(clazz);
+        if (table instanceof ConfigTable.LazyConfigTable lazy) {
+            return lazy.resolve();
+        }
+        return table;
+    }
+
+    /**
+     * 旧版本中行哈希对应的对象, 没有旧数据返回空
+     */
+    Map<Long, Object> oldRows(Class<?> clazz) {
+        var table = multiConfigData.get(clazz);
+        if (table instanceof ConfigTable.LazyConfigTable lazy) {
+            // 未创建过对象时不复用
+            table = lazy.resolved();
+        }
+        var hashes = rowHashes.get(clazz);
+        // 堆外配置表不保留对象
+        if (table == null || hashes == null || table instanceof OffHeapConfigTable) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Object> ret = HashMap.newHashMap(hashes.length);
+        for (int i = 0; i < hashes.length; i++) {
+            ret.put(hashes[i], table.values.get(i));
+        }
+        return ret;
     }
 
     /**
@@ -36,13 +85,106 @@ class DataContainer {
      *
      * @param configs  类与对应文件关系
      * @param typeInfo 类信息
+     * @param executor 读取, 解析和构造对象使用的线程池
+     * @param pool     本次加载的字符串去重池
+     * @param metrics  各阶段耗时
+     */
+    DataContainer refresh(Map<String, TypeInfo> configs, Map<Class<?>, ConfigTypeInfo> typeInfo, Executor executor,
+                          StringPool pool, LhotseMetrics metrics) {
+        return refresh(configs, typeInfo, executor, pool, metrics, false);
+    }
+
+    /**
+     * 刷新数据
+     *
+     * @param pipelined 是否使用流水线模式, 见{@link StepWithRead#pipeline}
+     */
+    DataContainer refresh(Map<String, TypeInfo> configs, Map<Class<?>, ConfigTypeInfo> typeInfo, Executor executor,
+                          StringPool pool, LhotseMetrics metrics, boolean pipelined) {
+        var step = new StepWithRead(configs, typeInfo, this, executor);
+        if (pipelined) {
+            return step.pipeline(pool, metrics);
+        }
+        return build(stage(metrics, LhotseMetrics.STAGE_READ, () -> step.readRaw(pool, metrics)), metrics);
+    }
+
+    /**
+     * 从合并后的原始内容创建数据
+     */
+    static DataContainer build(StepWithParseConfig step, LhotseMetrics metrics) {
+        return build(step, Map.of(), metrics);
+    }
+
+    /**
+     * 从合并后的原始内容创建数据
+     *
+     * @param piped 流水线模式已创建的表
+     */
+    static DataContainer build(StepWithParseConfig step, Map<Class<?>, PipedTable> piped, LhotseMetrics metrics) {
+        var normal = stage(metrics, LhotseMetrics.STAGE_PARSE_CONFIG, step::parseConfigData);
+        var field = stage(metrics, LhotseMetrics.STAGE_PARSE_FIELD, normal::parseNormalField);
+        return stage(metrics, LhotseMetrics.STAGE_TO_OBJECT, () -> field.toObject(piped));
+    }
+
+    /**
+     * 执行并记录一个加载阶段
+     */
+    static <T> T stage(LhotseMetrics metrics, String stage, Supplier<T> action) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        var ret = action.get();
+        long nanos = System.nanoTime() - start;
+        metrics.stage(stage, nanos, allocated < 0 ? -1 : allocatedBytes() - allocated);
+        return ret;
+    }
+
+    /**
+     * JVM所有线程累计分配的内存, 不支持时返回-1
      */
-    DataContainer refresh(Map<String, TypeInfo> configs, Map<Class<?>, ConfigTypeInfo> typeInfo) {
-        return new StepWithRead(configs, typeInfo, this)
-                .readRaw()
-                .parseConfigData()
-                .parseNormalField()
-                .toObject();
+    static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * 并行处理每一项, 所有失败项汇总后统一抛出, 结果与线程数无关
+     *
+     * @param tasks  待处理数据
+     * @param name   出错时标识文件或类
+     * @param action 处理逻辑
+     */
+    static <K, V, R> Map<K, R> runAll(Executor executor, Map<K, V> tasks, Function<K, String> name,
+                                      BiFunction<K, V, R> action) {
+        Map<K, CompletableFuture<R>> futures = new HashMap<>();
+        tasks.forEach((k, v) -> futures.put(k, CompletableFuture.supplyAsync(() -> action.apply(k, v), executor)));
+        Map<K, R> ret = new HashMap<>();
+        SortedMap<String, Throwable> errors = new TreeMap<>();
+        futures.forEach((k, future) -> {
+            try {
+                ret.put(k, future.join());
+            } catch (CompletionException ex) {
+                errors.put(name.apply(k), ex.getCause());
+            }
+        });
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("加载配置表失败, 共" + errors.size() + "项:");
+            errors.forEach((k, ex) -> message.append("\n\t").append(k).append(": ").append(ex.getMessage()));
+            var ex = new LhotseException(message.toString());
+            errors.values().forEach(ex::addSuppressed);
+            throw ex;
+        }
+        return ret;
+    }
+
+    /**
+     * 类对应的文件名, 用于错误信息
+     */
+    static String configName(Class<?> clazz) {
+        var annotation = clazz.getAnnotation(StorageConfig.class);
+        return annotation == null ? clazz.getName() : clazz.getName() + "(" + annotation.path() + ")";
     }
 
 
@@ -54,25 +196,151 @@ class DataContainer {
      * @param oldContainer 旧数据
      */
     record StepWithRead(Map<String, TypeInfo> configs, Map<Class<?>, ConfigTypeInfo> typeInfo,
-                        DataContainer oldContainer) {
+                        DataContainer oldContainer, Executor executor) {
+
+        StepWithParseConfig readRaw(StringPool pool, LhotseMetrics metrics) {
+            return merge(readFiles(metrics), pool);
+        }
+
+        Map<String, RawFile> readFiles() {
+            return readFiles(LhotseMetrics.NOOP);
+        }
+
+        /**
+         * 读取所有文件的原始内容, 同一物理文件的多个配置只读取一次
+         *
+         * @param metrics 记录每个文件的耗时, 行数和大小
+         * @return path: 文件内容
+         */
+        Map<String, RawFile> readFiles(LhotseMetrics metrics) {
+            var files = files();
+            Map<String, RawFile> ret = new HashMap<>();
+            runAll(executor, files, file -> file, (file, paths) -> {
+                long start = System.nanoTime();
+                var raw = readFile(file, paths);
+                int rows = raw.values().stream().mapToInt(RawFile::rows).sum();
+                metrics.fileRead(file, System.nanoTime() - start, rows, new File(file).length());
+                return raw;
+            }).values().forEach(ret::putAll);
+            return ret;
+        }
 
-        StepWithParseConfig readRaw() {
+        /**
+         * 按物理文件分组
+         *
+         * @return 文件: 对应的配置路径
+         */
+        Map<String, List<String>> files() {
+            Map<String, List<String>> files = new HashMap<>();
+            for (String path : configs.keySet()) {
+                var file = ConfigReader.get(path).sourceFile(path);
+                files.computeIfAbsent(file, k -> new ArrayList<>()).add(path);
+            }
+            return files;
+        }
+
+        /**
+         * 流水线模式, 每行读取后立即解析并创建对象, 不保留整张表的原始内容和中间数据<br>
+         * 加载期间的内存约为新表, 字符串字段去重池的索引和每个线程一行的中间数据, 只对字符串字段去重,
+         * 只适用于单独占一个文件的普通多数据配置表,
+         * 单配置表, 堆外和延迟创建的表, 以及多个配置共用的文件仍按阶段加载, 在流水线结束后进行
+         */
+        DataContainer pipeline(StringPool pool, LhotseMetrics metrics) {
+            Map<String, MultiTypeInfo> piped = new HashMap<>();
+            Map<String, TypeInfo> staged = new HashMap<>();
+            files().forEach((file, paths) -> {
+                if (paths.size() == 1 && configs.get(paths.get(0)) instanceof MultiTypeInfo info
+                        && !typeInfo.get(info.clazz()).offHeap() && !typeInfo.get(info.clazz()).lazy()) {
+                    piped.put(paths.get(0), info);
+                } else {
+                    paths.forEach(path -> staged.put(path, configs.get(path)));
+                }
+            });
+            Map<Class<?>, PipedTable> tables = new HashMap<>();
+            stage(metrics, LhotseMetrics.STAGE_PIPELINE, () -> runAll(executor, piped, path -> path, (path, info) -> {
+                long start = System.nanoTime();
+                var table = pipe(path, typeInfo.get(info.clazz()), pool);
+                metrics.fileRead(path, System.nanoTime() - start, table.hashes.length, new File(path).length());
+                return table;
+            })).forEach((path, table) -> tables.put(piped.get(path).clazz(), table));
+            var step = new StepWithRead(staged, typeInfo, oldContainer, executor);
+            return build(stage(metrics, LhotseMetrics.STAGE_READ, () -> step.readRaw(pool, metrics)), tables, metrics);
+        }
+
+        /**
+         * 逐行读取一张表, 内容未变的行复用旧对象
+         */
+        PipedTable pipe(String path, ConfigTypeInfo info, StringPool pool) {
+            var oldRows = oldContainer.oldRows(info.clazz());
+            List<IConfig> values = new ArrayList<>();
+            long[][] hashes = {new long[16]};
+            ConfigReader.get(path).readRows(path, row -> {
+                var hash = ConfigData.rowHash(info, row);
+                var old = oldRows.get(hash);
+                if (values.size() == hashes[0].length) {
+                    hashes[0] = Arrays.copyOf(hashes[0], hashes[0].length * 2);
+                }
+                hashes[0][values.size()] = hash;
+                values.add(old != null ? (IConfig) old : new ConfigData(info, row, hash, pool).toObject());
+            });
+            var rowHashes = Arrays.copyOf(hashes[0], values.size());
+            // 所有行内容和顺序都未变化时复用整张表
+            var oldTable = oldContainer.multiConfigData.get(info.clazz());
+            if (oldTable != null && Arrays.equals(rowHashes, oldContainer.rowHashes.get(info.clazz()))) {
+                return new PipedTable(oldTable, rowHashes);
+            }
+            return new PipedTable(ConfigTable.of(info.idType(), info.indexInfos(), values), rowHashes);
+        }
+
+        /**
+         * 读取一个文件
+         *
+         * @param paths 文件对应的配置路径, 多个时如同一Excel的不同sheet
+         */
+        Map<String, RawFile> readFile(String file, List<String> paths) {
+            if (paths.size() == 1) {
+                var path = paths.get(0);
+                var info = configs.get(path);
+                var reader = ConfigReader.get(path);
+                if (info instanceof SingleTypeInfo singleTypeInfo) {
+                    return Map.of(path, new RawFile(null, reader.readFileForSingle(singleTypeInfo.path(), singleTypeInfo.streaming())));
+                }
+                var multiTypeInfo = (MultiTypeInfo) info;
+                return Map.of(path, new RawFile(reader.readFile(multiTypeInfo.path(), multiTypeInfo.streaming()), null));
+            }
+            // 任一配置要求流式读取时整个文件流式读取
+            var streaming = paths.stream().anyMatch(path -> configs.get(path).streaming());
+            var reader = ConfigReader.get(paths.get(0));
+            Map<String, RawFile> ret = new HashMap<>();
+            reader.readSheets(file, paths, streaming).forEach((path, rows) -> {
+                if (configs.get(path) instanceof SingleTypeInfo) {
+                    ret.put(path, new RawFile(null, FileReader.toSingle(rows)));
+                } else {
+                    ret.put(path, new RawFile(rows, null));
+                }
+            });
+            return ret;
+        }
+
+        /**
+         * 合并文件内容, 文件内容可来自源文件或预编译数据
+         *
+         * @param pool 解析字符串字段时去重
+         */
+        StepWithParseConfig merge(Map<String, RawFile> raw, StringPool pool) {
             Map<String, List<Map<String, String>>> multiConfigData = new HashMap<>();
             Map<String, Map<String, String>> singleConfigData = new HashMap<>();
             Map<String, Class<?>> singleConfigWithKey = new HashMap<>();
-            configs.forEach((path, info) -> {
-                var reader = ConfigReader.get(path).getFileReader();
-                if (info instanceof SingleTypeInfo singleTypeInfo) {
-                    var result = reader.readFileForSingle(singleTypeInfo.path());
-                    singleConfigData.putAll(result);
+            // 按路径顺序合并, 保证结果确定
+            new TreeMap<>(raw).forEach((path, file) -> {
+                if (configs.get(path) instanceof SingleTypeInfo singleTypeInfo) {
+                    singleConfigData.putAll(file.single());
                     singleConfigWithKey.putAll(parseSingleClass(singleTypeInfo.classes()));
                 } else {
-                    var multiTypeInfo = (MultiTypeInfo) info;
-                    var result = reader.readFile(multiTypeInfo.path());
-                    multiConfigData.put(path, result);
+                    multiConfigData.put(path, file.multi());
                 }
             });
-            return new StepWithParseConfig(multiConfigData, singleConfigData, configs, typeInfo, singleConfigWithKey, oldContainer);
+            return new StepWithParseConfig(multiConfigData, singleConfigData, configs, typeInfo, singleConfigWithKey, oldContainer, pool, executor);
         }
 
         Map<String, Class<?>> parseSingleClass(Set<Class<?>> classes) {
@@ -86,6 +354,27 @@ class DataContainer {
         }
     }
 
+    /**
+     * 单个文件读取结果
+     *
+     * @param multi  多数据配置表内容
+     * @param single 单配置表内容
+     */
+    record RawFile(List<Map<String, String>> multi, Map<String, Map<String, String>> single) {
+
+        int rows() {
+            return multi != null ? multi.size() : single.size();
+        }
+    }
+
+    /**
+     * 流水线模式创建的表
+     *
+     * @param hashes 每行原始内容的哈希
+     */
+    record PipedTable(ConfigTable table, long[] hashes) {
+    }
+
     /**
      * 原始数据转为类原始数据
      *
@@ -97,7 +386,9 @@ class DataContainer {
                                Map<String, TypeInfo> configs,
                                Map<Class<?>, ConfigTypeInfo> typeInfo,
                                Map<String, Class<?>> singleConfigWithKey,
-                               DataContainer oldContainer) {
+                               DataContainer oldContainer,
+                               StringPool pool,
+                               Executor executor) {
 
         StepWithParseNormalField parseConfigData() {
             Map<Class<?>, List<Map<String, String>>> multiConfigData = new HashMap<>();
@@ -111,9 +402,12 @@ class DataContainer {
             Map<Class<?>, Map<String, String>> singleConfigData = new HashMap<>();
             singleConfigData().forEach((path, data) -> {
                 Class<?> clazz = singleConfigWithKey.get(path);
-                singleConfigData.put(clazz, data);
+                // 文件中未注册的key忽略
+                if (clazz != null) {
+                    singleConfigData.put(clazz, data);
+                }
             });
-            return new StepWithParseNormalField(multiConfigData, singleConfigData, typeInfo, oldContainer);
+            return new StepWithParseNormalField(multiConfigData, singleConfigData, typeInfo, oldContainer, pool, executor);
         }
     }
 
@@ -126,17 +420,32 @@ class DataContainer {
     record StepWithParseNormalField(Map<Class<?>, List<Map<String, String>>> multiConfigData,
                                     Map<Class<?>, Map<String, String>> singleConfigData,
                                     Map<Class<?>, ConfigTypeInfo> typeInfo,
-                                    DataContainer oldContainer) {
+                                    DataContainer oldContainer,
+                                    StringPool pool,
+                                    Executor executor) {
 
         StepWithToObject parseNormalField() {
+            // 单配置表视为只有一行的表, 与多数据配置表一起并行解析
+            Map<Class<?>, List<Map<String, String>>> tasks = new HashMap<>(multiConfigData());
+            singleConfigData().forEach((cls, data) -> tasks.put(cls, List.of(data)));
+            var parsed = runAll(executor, tasks, DataContainer::configName, (cls, data) -> {
+                var info = typeInfo.get(cls);
+                var oldRows = oldContainer.oldRows(cls);
+                return data.stream()
+                        .map(e -> {
+                            var hash = ConfigData.rowHash(info, e);
+                            // 内容未变的行不再解析
+                            var old = oldRows.get(hash);
+                            return old != null ? ConfigData.reuse(info, hash, old) : new ConfigData(info, e, hash, pool);
+                        })
+                        .toList();
+            });
+
             Map<Class<?>, List<ConfigData>> multiConfigData = new HashMap<>();
             Map<Class<?>, ConfigData> singleConfigData = new HashMap<>();
-
-            multiConfigData().forEach((cls, data) -> {
-                multiConfigData.put(cls, data.stream().map(e -> new ConfigData(cls, e, typeInfo.get(cls).fieldInfos())).toList());
-            });
-            singleConfigData().forEach((cls, data) -> singleConfigData.put(cls, new ConfigData(cls, data, typeInfo.get(cls).fieldInfos())));
-            return new StepWithToObject(multiConfigData, singleConfigData, oldContainer);
+            multiConfigData().keySet().forEach(cls -> multiConfigData.put(cls, parsed.get(cls)));
+            singleConfigData().keySet().forEach(cls -> singleConfigData.put(cls, parsed.get(cls).get(0)));
+            return new StepWithToObject(multiConfigData, singleConfigData, typeInfo, oldContainer, executor);
         }
     }
 
@@ -147,15 +456,31 @@ class DataContainer {
     record StepWithToObject(
             Map<Class<?>, List<ConfigData>> multiConfigData,
             Map<Class<?>, ConfigData> singleConfigData,
-            DataContainer oldContainer
+            Map<Class<?>, ConfigTypeInfo> typeInfo,
+            DataContainer oldContainer,
+            Executor executor
     ) {
-        @SuppressWarnings("rawtypes")
         DataContainer toObject() {
-            final Map<Class<?>, List<IConfig>> multiConfigData = new HashMap<>();
+            return toObject(Map.of());
+        }
+
+        /**
+         * @param piped 流水线模式已创建的表
+         */
+        @SuppressWarnings("rawtypes")
+        DataContainer toObject(Map<Class<?>, PipedTable> piped) {
+            final Map<Class<?>, ConfigTable> multiConfigData = new HashMap<>();
             final Map<Class<?>, Object> singleConfigData = new HashMap<>();
+            final Map<Class<?>, long[]> rowHashes = new HashMap<>();
+            piped.forEach((k, v) -> {
+                multiConfigData.put(k, v.table());
+                rowHashes.put(k, v.hashes());
+            });
+            // 未刷新的表直接复用
             oldContainer.multiConfigData.forEach((k, v) -> {
-                if (!multiConfigData().containsKey(k)) {
-                    multiConfigData.put(k, v.values().stream().toList());
+                if (!multiConfigData().containsKey(k) && !piped.containsKey(k)) {
+                    multiConfigData.put(k, v);
+                    rowHashes.put(k, oldContainer.rowHashes.get(k));
                 }
             });
             oldContainer.singleConfigData.forEach((k, v) -> {
@@ -163,89 +488,141 @@ class DataContainer {
                     singleConfigData.put(k, v);
                 }
             });
+            Map<Class<?>, List<ConfigData>> tasks = new HashMap<>(multiConfigData());
+            singleConfigData().forEach((k, v) -> tasks.put(k, List.of(v)));
+            // 单配置表返回对象, 多数据配置表返回ConfigTable
+            Map<Class<?>, Object> objects = runAll(executor, tasks, DataContainer::configName, (k, v) -> {
+                if (!multiConfigData().containsKey(k)) {
+                    return v.get(0).<Object>toObject();
+                }
+                // 所有行内容和顺序都未变化时复用整张表
+                var oldTable = oldContainer.multiConfigData.get(k);
+                if (oldTable != null && Arrays.equals(rowHashes(v), oldContainer.rowHashes.get(k))) {
+                    return oldTable;
+                }
+                var info = typeInfo.get(k);
+                if (info.offHeap()) {
+                    return OffHeapConfigTable.of(info, v);
+                }
+                if (info.lazy()) {
+                    return new ConfigTable.LazyConfigTable(info, v);
+                }
+                List<IConfig> values = v.stream().map(e -> (IConfig) e.toObject()).toList();
+                return ConfigTable.of(info.idType(), info.indexInfos(), values);
+            });
             multiConfigData().forEach((k, v) -> {
-                multiConfigData.put(k, v.stream().map(e -> ((IConfig) e.toObject())).toList());
+                multiConfigData.put(k, (ConfigTable) objects.get(k));
+                rowHashes.put(k, rowHashes(v));
             });
-            singleConfigData().forEach((k, v) -> singleConfigData.put(k, v.toObject()));
-            return new DataContainer(Collections.unmodifiableMap(multiConfigData), Collections.unmodifiableMap(singleConfigData));
+            singleConfigData().keySet().forEach(k -> singleConfigData.put(k, objects.get(k)));
+            // 包括未刷新的表, 目标变化时引用方重新创建
+            RefLinker.link(multiConfigData, singleConfigData, typeInfo, executor);
+            return new DataContainer(Collections.unmodifiableMap(multiConfigData), Collections.unmodifiableMap(singleConfigData),
+                    Collections.unmodifiableMap(rowHashes), oldContainer.generation + 1);
+        }
+
+        static long[] rowHashes(List<ConfigData> rows) {
+            return rows.stream().mapToLong(e -> e.hash).toArray();
         }
     }
 
     static class ConfigData {
 
-        static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+        final ConfigTypeInfo typeInfo;
         /**
-         * 对应类
+         * 原始内容哈希
          */
-        final Class<?> clazz;
-
-        final Set<FieldInfo> fieldInfos;
-
-        final Map<String, String> rawData;
-        Map<String, Object> properties;
-
-        final MethodHandle constructor;
+        final long hash;
+        /**
+         * 原始内容, 只有堆外配置表保留
+         */
+        final Map<String, String> raw;
+        /**
+         * 按record字段顺序解析后的值
+         */
+        Object[] args;
         /**
          * 对应数据
          */
         Object data;
 
-        ConfigData(Class<?> clazz, Map<String, String> raw, Set<FieldInfo> fieldInfos) {
-            this.clazz = clazz;
-            this.fieldInfos = fieldInfos;
-            this.rawData = raw;
-            this.properties = initNormalField(raw);
-            this.constructor = gerConstruct(clazz);
+        ConfigData(ConfigTypeInfo typeInfo, Map<String, String> raw) {
+            this(typeInfo, raw, rowHash(typeInfo, raw), null);
         }
 
-        Map<String, Object> initNormalField(Map<String, String> raw) {
-            Map<String, Object> properties = new HashMap<>();
-            fieldInfos.forEach(fieldInfo -> {
-                var value = raw.get(fieldInfo.name());
-                properties.put(fieldInfo.name(), fieldInfo.getRealValue(value));
-            });
-            return properties;
+        /**
+         * @param pool 字符串字段去重, 为null时不去重
+         */
+        ConfigData(ConfigTypeInfo typeInfo, Map<String, String> raw, long hash, StringPool pool) {
+            this.typeInfo = typeInfo;
+            this.hash = hash;
+            this.raw = typeInfo.offHeap() ? raw : null;
+            if (typeInfo.useLoader()) {
+                this.data = typeInfo.loader().create(raw, pool);
+            } else {
+                this.args = initNormalField(raw, pool);
+            }
+        }
+
+        private ConfigData(ConfigTypeInfo typeInfo, long hash, Object data) {
+            this.typeInfo = typeInfo;
+            this.hash = hash;
+            this.raw = null;
+            this.data = data;
         }
 
-        MethodHandle gerConstruct(Class<?> clazz) {
-            var recordComponents = clazz.getRecordComponents();
-            Class<?>[] argsType = new Class<?>[recordComponents.length];
-            int i = 0;
-            for (RecordComponent recordComponent : recordComponents) {
-                argsType[i] = recordComponent.getType();
-                i++;
+        /**
+         * 复用旧版本中内容相同的对象
+         */
+        static ConfigData reuse(ConfigTypeInfo typeInfo, long hash, Object data) {
+            return new ConfigData(typeInfo, hash, data);
+        }
+
+        /**
+         * 按record字段顺序计算原始内容哈希, 只包含类中用到的列
+         */
+        static long rowHash(ConfigTypeInfo typeInfo, Map<String, String> raw) {
+            var hash = new FileHash();
+            for (FieldInfo fieldInfo : typeInfo.fieldInfos()) {
+                var value = raw.get(fieldInfo.name());
+                hash.update(fieldInfo.name());
+                // 区分null与空字符串, 以及相邻字段的边界, 与拼接后的字节相同, 不创建临时字符串
+                hash.update((byte) 0);
+                if (value == null) {
+                    hash.update((byte) 'N');
+                } else {
+                    hash.update((byte) 'V');
+                    hash.update(value);
+                    hash.update((byte) 0);
+                }
             }
-            try {
-                return LOOKUP.findConstructor(clazz, MethodType.methodType(void.class, argsType));
-            } catch (Throwable ex) {
-                throw new LhotseException("获取构造方法失败", ex);
+            return hash.value();
+        }
+
+        Object[] initNormalField(Map<String, String> raw, StringPool pool) {
+            var fieldInfos = typeInfo.fieldInfos();
+            Object[] args = new Object[fieldInfos.size()];
+            for (int i = 0; i < args.length; i++) {
+                var fieldInfo = fieldInfos.get(i);
+                var value = raw.get(fieldInfo.name());
+                try {
+                    var arg = fieldInfo.getRealValue(value);
+                    args[i] = pool != null && fieldInfo.pooled() ? pool.intern((String) arg) : arg;
+                } catch (RuntimeException ex) {
+                    throw new LhotseException("解析字段失败 " + fieldInfo.name() + "=" + value + ", " + raw, ex);
+                }
             }
+            return args;
         }
 
         @SuppressWarnings("unchecked")
         <T> T toObject() {
             if (data == null) {
-                data = inject();
+                data = typeInfo.factory().create(args);
                 // 释放内存
-                properties = null;
+                args = null;
             }
             return (T) data;
         }
-
-        Object inject() {
-            var recordComponents = clazz.getRecordComponents();
-            Object[] args = new Object[recordComponents.length];
-            int i = 0;
-            for (RecordComponent recordComponent : recordComponents) {
-                args[i] = properties.get(recordComponent.getName());
-                i++;
-            }
-            try {
-                return constructor.invoke(args);
-            } catch (Throwable ex) {
-                throw new LhotseException("生成对象异常", ex);
-            }
-
-        }
     }
 }
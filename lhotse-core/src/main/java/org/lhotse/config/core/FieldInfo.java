@@ -2,21 +2,33 @@ package org.lhotse.config.core;
 
 import org.lhotse.config.core.exception.LhotseException;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
 interface FieldInfo {
 
     String name();
 
-    Object getRealValue(String rawValue);
+    Object getRealValue(CharSequence rawValue);
+
+    /**
+     * 字符串字段, 解析结果放入字符串去重池
+     */
+    default boolean pooled() {
+        return false;
+    }
 }
 
 class NormalFieldInfo implements FieldInfo {
 
     final String name;
-    final Class<?> type;
+    final Type type;
+    final FieldParser parser;
 
-    NormalFieldInfo(String name, Class<?> type) {
+    NormalFieldInfo(String name, Type type) {
         this.name = name;
         this.type = type;
+        this.parser = FieldParsers.of(type);
     }
 
     @Override
@@ -25,52 +37,28 @@ class NormalFieldInfo implements FieldInfo {
     }
 
     @Override
-    public Object getRealValue(String rawValue) {
+    public Object getRealValue(CharSequence rawValue) {
         if (rawValue == null) {
-            if (type.equals(boolean.class)) {
-                return false;
-            } else if (type.equals(byte.class)) {
-                return 0;
-            } else if (type.equals(short.class)) {
-                return 0;
-            } else if (type.equals(int.class)) {
-                return 0;
-            } else if (type.equals(long.class)) {
-                return 0L;
-            } else if (type.equals(float.class)) {
-                return 0F;
-            } else if (type.equals(double.class)) {
-                return 0.;
-            }
-            return null;
-        }
-        if (type.equals(String.class)) {
-            return rawValue;
-        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
-            return Boolean.parseBoolean(rawValue);
-        } else if (type.equals(Byte.class) || type.equals(byte.class)) {
-            return Byte.parseByte(rawValue);
-        } else if (type.equals(Short.class) || type.equals(short.class)) {
-            return Short.parseShort(rawValue);
-        } else if (type.equals(Integer.class) || type.equals(int.class)) {
-            return Integer.parseInt(rawValue);
-        } else if (type.equals(Long.class) || type.equals(long.class)) {
-            return Long.parseLong(rawValue);
-        } else if (type.equals(Float.class) || type.equals(float.class)) {
-            return Float.parseFloat(rawValue);
-        } else if (type.equals(Double.class) || type.equals(double.class)) {
-            return Double.parseDouble(rawValue);
+            return parser.defaultValue();
         }
-        throw new UnsupportedOperationException("不支持其它类型操作");
+        return parser.parse(rawValue);
+    }
+
+    @Override
+    public boolean pooled() {
+        return parser == FieldParsers.STRING;
     }
 }
 
-class CustomFieldInfo extends NormalFieldInfo {
+class CustomFieldInfo implements FieldInfo {
 
+    final String name;
+    final Type type;
     final FieldConvertor convertor;
 
-    CustomFieldInfo(String name, Class<?> type, Class<? extends FieldConvertor> convertor) {
-        super(name, type);
+    CustomFieldInfo(String name, Type type, Class<? extends FieldConvertor> convertor) {
+        this.name = name;
+        this.type = type;
         try {
             this.convertor = convertor.getDeclaredConstructor().newInstance();
         } catch (Throwable ex) {
@@ -79,10 +67,57 @@ class CustomFieldInfo extends NormalFieldInfo {
     }
 
     @Override
-    public Object getRealValue(String rawValue) {
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Object getRealValue(CharSequence rawValue) {
         if (rawValue == null) {
             return null;
         }
-        return convertor.encode(rawValue);
+        return convertor.encode(rawValue.toString());
+    }
+}
+
+/**
+ * 引用其他配置表的字段, 解析为未关联的{@link ConfigRef}, 创建对象后统一关联
+ */
+class RefFieldInfo implements FieldInfo {
+
+    final String name;
+    final Type type;
+    /**
+     * 目标配置类
+     */
+    final Class<?> target;
+    final FieldParser idParser;
+
+    RefFieldInfo(String name, Type type, Class<?> target) {
+        var raw = type instanceof ParameterizedType parameterizedType ? parameterizedType.getRawType() : type;
+        if (raw != ConfigRef.class) {
+            throw new LhotseException("@Ref字段类型必须为ConfigRef, " + name);
+        }
+        if (type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> arg && arg != target) {
+            throw new LhotseException("@Ref目标与字段类型不一致, " + name);
+        }
+        this.name = name;
+        this.type = type;
+        this.target = target;
+        this.idParser = FieldParsers.of(ConfigTypeInfo.idType(target));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Object getRealValue(CharSequence rawValue) {
+        if (rawValue == null || FieldParsers.trimStart(rawValue, 0, rawValue.length()) == rawValue.length()) {
+            return null;
+        }
+        return new ConfigRef<>(target, idParser.parse(rawValue));
     }
 }
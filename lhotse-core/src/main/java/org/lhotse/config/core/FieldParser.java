@@ -0,0 +1,427 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * 字段解析器, 每个record字段只解析一次类型, 之后直接解析文本区间
+ */
+@FunctionalInterface
+interface FieldParser {
+
+    /**
+     * 解析文本区间[start, end)
+     */
+    Object parse(CharSequence text, int start, int end);
+
+    default Object parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * 字段为空时的值, 基础类型为0或false
+     */
+    default Object defaultValue() {
+        return null;
+    }
+}
+
+/**
+ * 字段解析器创建与通用解析方法
+ */
+final class FieldParsers {
+
+    static final FieldParser STRING = FieldParsers::slice;
+    static final FieldParser BOOLEAN = FieldParsers::parseBoolean;
+    static final FieldParser BYTE = (text, start, end) -> (byte) parseInt(text, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    static final FieldParser SHORT = (text, start, end) -> (short) parseInt(text, start, end, Short.MIN_VALUE, Short.MAX_VALUE);
+    static final FieldParser INT = FieldParsers::parseInt;
+    static final FieldParser LONG = FieldParsers::parseLong;
+    static final FieldParser FLOAT = FieldParsers::parseFloat;
+    static final FieldParser DOUBLE = FieldParsers::parseDouble;
+
+    private FieldParsers() {
+    }
+
+    /**
+     * 根据字段类型创建解析器
+     *
+     * @param type record字段的泛型类型
+     */
+    static FieldParser of(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return of(clazz);
+        }
+        if (type instanceof ParameterizedType parameterizedType) {
+            var raw = parameterizedType.getRawType();
+            var args = parameterizedType.getActualTypeArguments();
+            if (raw == List.class || raw == Collection.class) {
+                return new ListParser(element(args[0]));
+            }
+            if (raw == Set.class) {
+                return new SetParser(element(args[0]));
+            }
+            if (raw == Map.class) {
+                return new MapParser(element(args[0]), element(args[1]));
+            }
+        }
+        throw new LhotseException("不支持的字段类型" + type.getTypeName());
+    }
+
+    static FieldParser of(Class<?> type) {
+        if (type == String.class) {
+            return STRING;
+        } else if (type == boolean.class) {
+            return withDefault(BOOLEAN, false);
+        } else if (type == byte.class) {
+            return withDefault(BYTE, (byte) 0);
+        } else if (type == short.class) {
+            return withDefault(SHORT, (short) 0);
+        } else if (type == int.class) {
+            return withDefault(INT, 0);
+        } else if (type == long.class) {
+            return withDefault(LONG, 0L);
+        } else if (type == float.class) {
+            return withDefault(FLOAT, 0F);
+        } else if (type == double.class) {
+            return withDefault(DOUBLE, 0.);
+        } else if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Integer.class) {
+            return INT;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type.isEnum()) {
+            return new EnumParser(type);
+        } else if (type == int[].class) {
+            return new IntArrayParser();
+        } else if (type == long[].class) {
+            return new LongArrayParser();
+        } else if (type.isArray()) {
+            return new ArrayParser(type.getComponentType(), element(type.getComponentType()));
+        }
+        throw new LhotseException("不支持的字段类型" + type.getName());
+    }
+
+    /**
+     * 集合元素解析器, 不支持嵌套集合
+     */
+    static FieldParser element(Type type) {
+        if (type instanceof Class<?> clazz && !clazz.isArray()) {
+            return of(clazz);
+        }
+        throw new LhotseException("不支持的集合元素类型" + type.getTypeName());
+    }
+
+    static FieldParser withDefault(FieldParser parser, Object defaultValue) {
+        return new FieldParser() {
+            @Override
+            public Object parse(CharSequence text, int start, int end) {
+                return parser.parse(text, start, end);
+            }
+
+            @Override
+            public Object defaultValue() {
+                return defaultValue;
+            }
+        };
+    }
+
+    static String slice(CharSequence text, int start, int end) {
+        if (start == 0 && end == text.length() && text instanceof String str) {
+            return str;
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    static int trimStart(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 与{@link Integer#parseInt(String)}一致, 不去掉空白
+     */
+    static int parseInt(CharSequence text, int start, int end) {
+        return Integer.parseInt(text, start, end, 10);
+    }
+
+    /**
+     * 解析并检查范围, 与{@link Byte#parseByte(String)}和{@link Short#parseShort(String)}一致, 超出范围时抛出异常
+     */
+    static int parseInt(CharSequence text, int start, int end, int min, int max) {
+        var value = parseInt(text, start, end);
+        if (value < min || value > max) {
+            throw new NumberFormatException("Value out of range. Value:\"" + text.subSequence(start, end) + "\" Radix:10");
+        }
+        return value;
+    }
+
+    static long parseLong(CharSequence text, int start, int end) {
+        return Long.parseLong(text, start, end, 10);
+    }
+
+    /**
+     * 直接解析为float, 先解析为double再转换会两次舍入
+     */
+    static float parseFloat(CharSequence text, int start, int end) {
+        return Float.parseFloat(slice(text, start, end));
+    }
+
+    static double parseDouble(CharSequence text, int start, int end) {
+        return Double.parseDouble(slice(text, start, end));
+    }
+
+    /**
+     * 与{@link Boolean#parseBoolean(String)}一致, 只有忽略大小写的true为真
+     */
+    static boolean parseBoolean(CharSequence text, int start, int end) {
+        if (end - start != 4) {
+            return false;
+        }
+        var expected = "true";
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 逐个处理以逗号分隔的元素, 元素两侧空白会被去掉, 引号内的逗号和反斜杠转义的字符不作为分隔符
+     *
+     * @param open  可选的起始括号
+     * @param close 可选的结束括号
+     */
+    static void forEachElement(CharSequence text, int start, int end, char open, char close, ElementConsumer consumer) {
+        start = trimStart(text, start, end);
+        end = trimEnd(text, start, end);
+        if (end - start >= 2 && text.charAt(start) == open && text.charAt(end - 1) == close) {
+            start++;
+            end--;
+        }
+        boolean quoted = false;
+        int elementStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end) {
+                var c = text.charAt(i);
+                if (c == '\\' && quoted) {
+                    i++;
+                    continue;
+                }
+                if (c == '"') {
+                    quoted = !quoted;
+                }
+                if (c != ',' || quoted) {
+                    continue;
+                }
+            }
+            var s = trimStart(text, elementStart, i);
+            var e = trimEnd(text, s, i);
+            // 空文本或空括号没有元素
+            if (e > s || i < end || elementStart > start) {
+                consumer.accept(text, s, e);
+            }
+            elementStart = i + 1;
+        }
+    }
+
+    /**
+     * 去掉两侧空白和引号后解析, 引号内按Json规则处理反斜杠转义
+     */
+    static Object parseUnquoted(FieldParser parser, CharSequence text, int start, int end) {
+        var s = trimStart(text, start, end);
+        var e = trimEnd(text, s, end);
+        if (e - s >= 2 && text.charAt(s) == '"' && text.charAt(e - 1) == '"') {
+            s++;
+            e--;
+            for (int i = s; i < e; i++) {
+                if (text.charAt(i) == '\\') {
+                    return parser.parse(unescape(text, s, e));
+                }
+            }
+        }
+        return parser.parse(text, s, e);
+    }
+
+    /**
+     * Json字符串转义: \" \\ \/ \b \f \n \r \t 以及反斜杠u加4位十六进制, 其他转义报错
+     */
+    static String unescape(CharSequence text, int start, int end) {
+        var ret = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            var c = text.charAt(i);
+            if (c != '\\') {
+                ret.append(c);
+                continue;
+            }
+            if (++i == end) {
+                throw new LhotseException("转义不完整 " + slice(text, start, end));
+            }
+            switch (text.charAt(i)) {
+                case '"' -> ret.append('"');
+                case '\\' -> ret.append('\\');
+                case '/' -> ret.append('/');
+                case 'b' -> ret.append('\b');
+                case 'f' -> ret.append('\f');
+                case 'n' -> ret.append('\n');
+                case 'r' -> ret.append('\r');
+                case 't' -> ret.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new LhotseException("转义不完整 " + slice(text, start, end));
+                    }
+                    ret.append((char) Integer.parseInt(text, i + 1, i + 5, 16));
+                    i += 4;
+                }
+                default -> throw new LhotseException("不支持的转义\\" + text.charAt(i) + " " + slice(text, start, end));
+            }
+        }
+        return ret.toString();
+    }
+
+    @FunctionalInterface
+    interface ElementConsumer {
+        void accept(CharSequence text, int start, int end);
+    }
+
+    /**
+     * [1, 2, 3] 或 1,2,3
+     */
+    record ListParser(FieldParser element) implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            List<Object> ret = new ArrayList<>();
+            forEachElement(text, start, end, '[', ']', (t, s, e) -> ret.add(parseUnquoted(element, t, s, e)));
+            return Collections.unmodifiableList(ret);
+        }
+    }
+
+    record SetParser(FieldParser element) implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            Set<Object> ret = new LinkedHashSet<>();
+            forEachElement(text, start, end, '[', ']', (t, s, e) -> ret.add(parseUnquoted(element, t, s, e)));
+            return Collections.unmodifiableSet(ret);
+        }
+    }
+
+    /**
+     * {"a": 1, "b": 2} 或 a:1,b:2
+     */
+    record MapParser(FieldParser key, FieldParser value) implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            Map<Object, Object> ret = new LinkedHashMap<>();
+            forEachElement(text, start, end, '{', '}', (t, s, e) -> {
+                int split = -1;
+                boolean quoted = false;
+                for (int i = s; i < e; i++) {
+                    var c = t.charAt(i);
+                    if (c == '\\' && quoted) {
+                        i++;
+                    } else if (c == '"') {
+                        quoted = !quoted;
+                    } else if (c == ':' && !quoted) {
+                        split = i;
+                        break;
+                    }
+                }
+                if (split < 0) {
+                    throw new LhotseException("Map格式错误, 缺少':' " + slice(t, s, e));
+                }
+                ret.put(parseUnquoted(key, t, s, split), parseUnquoted(value, t, split + 1, e));
+            });
+            return Collections.unmodifiableMap(ret);
+        }
+    }
+
+    static final class EnumParser implements FieldParser {
+
+        final Class<?> type;
+        final Map<String, Object> constants = new HashMap<>();
+
+        EnumParser(Class<?> type) {
+            this.type = type;
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+        }
+
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            var s = trimStart(text, start, end);
+            var name = slice(text, s, trimEnd(text, s, end));
+            var value = constants.get(name);
+            if (value == null) {
+                throw new LhotseException("枚举" + type.getName() + "不存在" + name);
+            }
+            return value;
+        }
+    }
+
+    static final class IntArrayParser implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            int[][] holder = {new int[8]};
+            int[] size = {0};
+            forEachElement(text, start, end, '[', ']', (t, s, e) -> {
+                if (size[0] == holder[0].length) {
+                    holder[0] = Arrays.copyOf(holder[0], size[0] * 2);
+                }
+                holder[0][size[0]++] = parseInt(t, s, e);
+            });
+            return Arrays.copyOf(holder[0], size[0]);
+        }
+    }
+
+    static final class LongArrayParser implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            long[][] holder = {new long[8]};
+            int[] size = {0};
+            forEachElement(text, start, end, '[', ']', (t, s, e) -> {
+                if (size[0] == holder[0].length) {
+                    holder[0] = Arrays.copyOf(holder[0], size[0] * 2);
+                }
+                holder[0][size[0]++] = parseLong(t, s, e);
+            });
+            return Arrays.copyOf(holder[0], size[0]);
+        }
+    }
+
+    record ArrayParser(Class<?> componentType, FieldParser element) implements FieldParser {
+        @Override
+        public Object parse(CharSequence text, int start, int end) {
+            List<Object> values = new ArrayList<>();
+            forEachElement(text, start, end, '[', ']', (t, s, e) -> values.add(parseUnquoted(element, t, s, e)));
+            var ret = Array.newInstance(componentType, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Array.set(ret, i, values.get(i));
+            }
+            return ret;
+        }
+    }
+}
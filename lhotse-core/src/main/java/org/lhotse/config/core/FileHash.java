@@ -0,0 +1,127 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * 64位内容哈希, 由CRC32C和CRC32拼接, 两者均有硬件加速
+ */
+final class FileHash {
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private final CRC32C crc32c = new CRC32C();
+    private final CRC32 crc32 = new CRC32();
+
+    void update(byte[] bytes, int offset, int length) {
+        crc32c.update(bytes, offset, length);
+        crc32.update(bytes, offset, length);
+    }
+
+    void update(byte b) {
+        crc32c.update(b);
+        crc32.update(b);
+    }
+
+    /**
+     * 按UTF-8编码更新, 与getBytes(UTF_8)的结果一致, 编码到线程复用的缓冲区, 不为每个值分配数组
+     */
+    void update(String text) {
+        byte[] buffer = BUFFER.get();
+        int n = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (n > buffer.length - 4) {
+                update(buffer, 0, n);
+                n = 0;
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[n++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[n++] = (byte) (0xC0 | c >> 6);
+                buffer[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                buffer[n++] = (byte) (0xF0 | cp >> 18);
+                buffer[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                buffer[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                buffer[n++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符与getBytes一样替换为?
+                buffer[n++] = '?';
+            } else {
+                buffer[n++] = (byte) (0xE0 | c >> 12);
+                buffer[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        update(buffer, 0, n);
+    }
+
+    long value() {
+        return (crc32c.getValue() << 32) | crc32.getValue();
+    }
+
+    /**
+     * 文件内容哈希
+     */
+    static long hash(Path path) {
+        var hash = new FileHash();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = inputStream.read(buffer)) > 0) {
+                hash.update(buffer, 0, n);
+            }
+        } catch (IOException ex) {
+            throw new LhotseException("读取文件失败" + path, ex);
+        }
+        return hash.value();
+    }
+}
+
+/**
+ * 文件指纹, 大小和修改时间均未变化时认为内容未变, 否则比较内容哈希
+ *
+ * @param size         文件大小
+ * @param lastModified 修改时间(纳秒)
+ * @param hash         内容哈希
+ */
+record FileFingerprint(long size, long lastModified, long hash) {
+
+    static FileFingerprint of(Path path) {
+        var attributes = attributes(path);
+        return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), FileHash.hash(path));
+    }
+
+    /**
+     * 文件内容是否与指纹一致, 大小或修改时间变化时才计算哈希
+     *
+     * @return 一致时返回更新了大小和修改时间的指纹, 不一致返回null
+     */
+    FileFingerprint check(Path path) {
+        var attributes = attributes(path);
+        if (attributes.size() == size && attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) == lastModified) {
+            return this;
+        }
+        var current = of(path);
+        return current.hash == hash ? current : null;
+    }
+
+    static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            throw new LhotseException("读取文件失败" + path, ex);
+        }
+    }
+}
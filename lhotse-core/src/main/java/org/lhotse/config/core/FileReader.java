@@ -0,0 +1,164 @@
+package org.lhotse.config.core;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 配置文件解析器, 通过{@link java.util.ServiceLoader}注册: 在META-INF/services/org.lhotse.config.core.FileReader中写入实现类名<br>
+ * 内容统一为按行的字段名: 原文, 除必须实现的方法外, 其余为可选能力, 默认基于{@link #readFile(String)}实现:
+ * <ul>
+ *     <li>{@link #readRows}: 逐行读取, 不持有整个文件</li>
+ *     <li>{@link #sourceFile}和{@link #readSheets}: 同一物理文件中的多个配置一次读取</li>
+ *     <li>{@link #readCells}: 单元格以字符区间回调, 不创建字符串和行</li>
+ * </ul>
+ * 实现需线程安全, 不同文件会并行读取
+ */
+public interface FileReader {
+
+    /**
+     * 读取文件内容
+     *
+     * @return map数组
+     */
+    List<Map<String, String>> readFile(String path);
+
+    /**
+     * 输出内容的版本, 单元格的归一化规则(如数字格式, Json压缩)变化时加1, 已有的预编译数据随之失效
+     */
+    default int revision() {
+        return 0;
+    }
+
+    /**
+     * 读取文件内容
+     *
+     * @param streaming 是否使用流式读取, 不支持流式读取的格式忽略该参数
+     * @return map数组
+     */
+    default List<Map<String, String>> readFile(String path, boolean streaming) {
+        return readFile(path);
+    }
+
+    /**
+     * 逐行读取文件内容, 不支持流式读取的格式读取完整文件后逐行回调
+     *
+     * @param consumer 行回调
+     */
+    default void readRows(String path, Consumer<Map<String, String>> consumer) {
+        readFile(path).forEach(consumer);
+    }
+
+    /**
+     * 读取单配置内容
+     *
+     * @return key: map内容
+     */
+    Map<String, Map<String, String>> readFileForSingle(String path);
+
+    /**
+     * 读取单配置内容
+     *
+     * @param streaming 是否使用流式读取, 不支持流式读取的格式忽略该参数
+     * @return key: map内容
+     */
+    default Map<String, Map<String, String>> readFileForSingle(String path, boolean streaming) {
+        return readFileForSingle(path);
+    }
+
+    /**
+     * 是否支持该配置路径
+     */
+    boolean match(String filepath);
+
+    /**
+     * 优先级, 多个解析器匹配同一文件时取最大的, 内置解析器为0
+     */
+    default int priority() {
+        return 0;
+    }
+
+    /**
+     * 配置路径对应的物理文件, 对应同一文件的配置通过{@link #readSheets}一起读取, 也用于监听文件变化
+     */
+    default String sourceFile(String path) {
+        return path;
+    }
+
+    /**
+     * 读取同一物理文件中的多个配置, 只在多个配置对应同一文件时调用<br>
+     * 其中的单配置按表格格式由调用方通过{@link #toSingle(List)}合并
+     *
+     * @param file      物理文件
+     * @param paths     配置路径
+     * @param streaming 是否流式读取
+     * @return 配置路径: 内容
+     */
+    default Map<String, List<Map<String, String>>> readSheets(String file, Collection<String> paths, boolean streaming) {
+        Map<String, List<Map<String, String>>> ret = new HashMap<>();
+        for (String path : paths) {
+            ret.put(path, readFile(path, streaming));
+        }
+        return ret;
+    }
+
+    /**
+     * 逐个单元格读取, text只在回调期间有效, 需要保留时自行复制<br>
+     * 默认基于{@link #readRows}, 单元格已是字符串
+     */
+    default void readCells(String path, CellConsumer consumer) {
+        readRows(path, row -> {
+            row.forEach((title, value) -> consumer.cell(title, value, 0, value.length()));
+            consumer.endRow();
+        });
+    }
+
+    /**
+     * 表格格式的单配置, id列为空的行属于上一个id<br>
+     * | id | key | value |
+     */
+    static Map<String, Map<String, String>> toSingle(List<Map<String, String>> mapList) {
+        Map<String, Map<String, String>> ret = new HashMap<>();
+        String currId = null;
+        Map<String, String> currMap = new HashMap<>();
+        for (var map : mapList) {
+            var id = map.get("id");
+            if (id != null && !id.isEmpty()) {
+                if (currId != null) {
+                    ret.put(currId, currMap);
+                    currMap = new HashMap<>();
+                }
+                currId = id;
+            }
+            if (currId == null) {
+                continue;
+            }
+            var key = map.get("key");
+            var value = map.get("value");
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            currMap.put(key, value);
+        }
+        ret.put(currId, currMap);
+
+        return ret;
+    }
+
+    /**
+     * 单元格回调
+     */
+    interface CellConsumer {
+
+        /**
+         * 一个非空单元格, 内容为text的[start, end)
+         *
+         * @param title 列名
+         */
+        void cell(String title, CharSequence text, int start, int end);
+
+        /**
+         * 一行结束
+         */
+        void endRow();
+    }
+}
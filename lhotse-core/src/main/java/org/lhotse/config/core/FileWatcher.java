@@ -0,0 +1,144 @@
+package org.lhotse.config.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 递归监听配置表目录, 合并一段时间内的变化后统一回调<br>
+ * 编辑器先写临时文件再重命名的保存方式表现为ENTRY_CREATE, 与ENTRY_MODIFY一样处理
+ */
+@Slf4j
+class FileWatcher implements Runnable {
+
+    final Path root;
+    /**
+     * 最后一次变化后等待的时间, 期间没有新变化才回调
+     */
+    final long debounceMs;
+    /**
+     * 回调变化文件的绝对路径, 事件溢出时为null, 表示需要全部刷新
+     */
+    final Consumer<Set<Path>> onChange;
+
+    final Map<WatchKey, Path> directories = new HashMap<>();
+
+    WatchService watchService;
+
+    FileWatcher(Path root, long debounceMs, Consumer<Set<Path>> onChange) {
+        this.root = root.toAbsolutePath().normalize();
+        this.debounceMs = debounceMs;
+        this.onChange = onChange;
+    }
+
+    /**
+     * 注册所有目录, 在启动线程前调用, 之后的变化都不会丢失
+     */
+    void register() throws IOException {
+        watchService = root.getFileSystem().newWatchService();
+        try {
+            registerAll(watchService, root);
+        } catch (IOException ex) {
+            watchService.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * 未启动线程时释放监听
+     */
+    void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        try (WatchService watchService = this.watchService) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> paths = new HashSet<>();
+                var key = watchService.take();
+                boolean overflow = false;
+                // 持续收集直到debounceMs内没有新事件
+                while (key != null) {
+                    overflow |= poll(watchService, key, paths);
+                    key = watchService.poll(debounceMs, TimeUnit.MILLISECONDS);
+                }
+                if (overflow || !paths.isEmpty()) {
+                    try {
+                        onChange.accept(overflow ? null : paths);
+                    } catch (Exception ex) {
+                        log.error("更新文件失败 {}", paths, ex);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.error("监听文件异常 {}", root, ex);
+        }
+    }
+
+    /**
+     * 处理一个目录的事件
+     *
+     * @return 是否有事件丢失
+     */
+    boolean poll(WatchService watchService, WatchKey key, Set<Path> paths) {
+        var dir = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            var kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            // context是相对于所在目录的路径
+            var path = dir.resolve((Path) event.context());
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                    // 新目录及其中已有的文件
+                    try {
+                        registerAll(watchService, path);
+                        try (var files = Files.walk(path)) {
+                            files.filter(Files::isRegularFile).forEach(paths::add);
+                        }
+                    } catch (IOException ex) {
+                        log.warn("监听目录失败 {}", path, ex);
+                    }
+                }
+                continue;
+            }
+            if (kind != StandardWatchEventKinds.ENTRY_DELETE) {
+                paths.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return overflow;
+    }
+
+    void registerAll(WatchService watchService, Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                var key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,16 +1,19 @@
 package org.lhotse.config.core;
 
-import com.sun.nio.file.ExtendedWatchEventModifier;
 import lombok.extern.slf4j.Slf4j;
 import org.lhotse.config.core.annotations.Custom;
+import org.lhotse.config.core.annotations.Ref;
 import org.lhotse.config.core.annotations.SingleConfig;
 import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.exception.LhotseException;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.RecordComponent;
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -28,95 +31,266 @@ public class GlobalDataStorage {
      */
     final String basePath;
     /**
-     * 监听文件变化间隔
+     * 监听文件变化时合并的等待时间, 最后一次变化后这段时间内没有新变化才刷新, 小于等于0不监听
      */
     final long watchUpdateFileIntervalMs;
+    /**
+     * 全局是否使用流式读取
+     */
+    final boolean streaming;
+    /**
+     * 并行加载的线程数
+     */
+    final int parallelism;
+    /**
+     * 预编译数据路径, 为空时直接读取源文件
+     */
+    volatile String compiledPath;
+    /**
+     * 是否使用流水线模式加载, 每行读取后立即创建对象, 降低加载期间的内存峰值
+     */
+    volatile boolean pipelined;
 
     volatile TypeInfoParse typeInfoParse;
 
+    /**
+     * 加载和查询指标
+     */
+    volatile LhotseMetrics metrics = LhotseMetrics.NOOP;
+    /**
+     * 是否记录按id查询, 未设置指标时查询不调用指标方法
+     */
+    volatile boolean lookupMetrics;
+
+    /**
+     * 已加载文件的指纹, 文件路径: 指纹, 内容未变的文件不再重新加载
+     */
+    final Map<String, FileFingerprint> fingerprints = new ConcurrentHashMap<>();
+
     volatile AtomicReference<DataContainer> dataContainer = new AtomicReference<>(new DataContainer());
 
+    /**
+     * 仅用于兼容{@link #safeBatchQuery(Callable2)}, 快照查询不使用
+     */
     static final ReadWriteLock Lock = new ReentrantReadWriteLock();
 
     volatile Thread watchThread;
 
     public GlobalDataStorage(String basePath, long watchUpdateFileIntervalMs) {
+        this(basePath, watchUpdateFileIntervalMs, false);
+    }
+
+    public GlobalDataStorage(String basePath, long watchUpdateFileIntervalMs, boolean streaming) {
+        this(basePath, watchUpdateFileIntervalMs, streaming, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GlobalDataStorage(String basePath, long watchUpdateFileIntervalMs, boolean streaming, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism必须大于0, " + parallelism);
+        }
         this.basePath = basePath;
         this.watchUpdateFileIntervalMs = watchUpdateFileIntervalMs;
+        this.streaming = streaming;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 设置预编译数据路径, 需在{@link #init(Set)}前调用
+     *
+     * @see ConfigCompiler
+     */
+    public void setCompiledPath(String compiledPath) {
+        this.compiledPath = compiledPath;
+    }
+
+    /**
+     * 设置是否使用流水线模式加载, 每行读取后立即解析并创建对象, 不保留整张表的原始内容和中间数据,
+     * 加载期间除旧数据外约为新表, 字符串字段去重池的索引和每个线程正在解析的一行.
+     * 只对单独占一个文件的普通多数据配置表生效, 其他表仍按阶段加载
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * 设置加载和查询指标, 需在{@link #init(Set)}前调用才能记录首次加载
+     */
+    public void setMetrics(LhotseMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+        this.lookupMetrics = metrics != LhotseMetrics.NOOP;
     }
 
     /**
      * 注册配置表
      */
     public void init(Set<Class<?>> types) {
-        this.typeInfoParse = new TypeInfoParse(basePath, types);
-        refresh(types);
-        this.watchThread = new Thread(() -> {
+        this.typeInfoParse = new TypeInfoParse(basePath, types, streaming);
+        close();
+        // 加载前注册监听, 加载期间和之后的修改都会触发刷新
+        FileWatcher watcher = null;
+        if (watchUpdateFileIntervalMs > 0) {
+            watcher = new FileWatcher(Path.of(basePath), watchUpdateFileIntervalMs, this::onFileChange);
             try {
-                watchFile();
-            } catch (Exception ex) {
-                log.error("监听文件异常", ex);
+                watcher.register();
+            } catch (IOException ex) {
+                throw new LhotseException("监听文件失败 " + basePath, ex);
             }
-        });
-        this.watchThread.setName("config-watch-thread");
-        this.watchThread.setDaemon(true);
+        }
+        try {
+            if (!loadCompiled()) {
+                refresh(types);
+            }
+        } catch (RuntimeException ex) {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    ex.addSuppressed(e);
+                }
+            }
+            throw ex;
+        }
+        if (watcher != null) {
+            this.watchThread = new Thread(watcher);
+            this.watchThread.setName("config-watch-thread");
+            this.watchThread.setDaemon(true);
+            this.watchThread.start();
+        }
     }
 
     public void close() {
         if (this.watchThread != null) {
             this.watchThread.interrupt();
+            this.watchThread = null;
         }
     }
 
-    void watchFile() throws Exception {
-        var watchFile = new File(basePath);
+    /**
+     * 文件变化回调, 一次合并后的变化只刷新一次
+     *
+     * @param paths 变化的文件, 为null时刷新全部
+     */
+    void onFileChange(Set<Path> paths) {
+        if (paths == null) {
+            refresh(typeInfoParse.configTypeInfo.keySet());
+            return;
+        }
+        refreshForPath(paths.stream().map(e -> e.toAbsolutePath().normalize().toString()).collect(Collectors.toSet()));
+    }
 
-        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
-            watchFile.toPath().register(watchService, new WatchEvent.Kind[]{
-                    StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_DELETE,
-                    StandardWatchEventKinds.ENTRY_MODIFY
-            }, ExtendedWatchEventModifier.FILE_TREE);
-            while (!Thread.currentThread().isInterrupted()) {
-                var key = watchService.poll(watchUpdateFileIntervalMs, TimeUnit.SECONDS);
-                if (key == null) {
-                    continue;
-                }
-                Set<String> paths = new HashSet<>();
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    var kind = event.kind();
-                    if (kind == StandardWatchEventKinds.OVERFLOW) {
-                        continue;
-                    }
-                    var context = (Path) event.context();
-                    if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-                        paths.add(context.toFile().getAbsolutePath());
-                    }
-                }
-                key.reset();
-                if (!paths.isEmpty()) {
-                    try {
-                        refreshForPath(paths);
-                    } catch (Exception ex) {
-                        log.error("更新文件失败", ex);
-                    }
+    /**
+     * 加载预编译数据, 结构指纹或任一源文件哈希不一致时放弃
+     *
+     * @return 是否加载成功
+     */
+    synchronized boolean loadCompiled() {
+        if (compiledPath == null || !Files.exists(Path.of(compiledPath))) {
+            return false;
+        }
+        try {
+            var compiled = CompiledConfigFile.read(Path.of(compiledPath));
+            if (compiled.fingerprint() != CompiledConfigFile.fingerprint(typeInfoParse.configTypeInfo)) {
+                log.info("预编译数据结构不一致, 读取源文件 {}", compiledPath);
+                return false;
+            }
+            var fingerprints = fingerprints(typeInfoParse.typeInfoMap.keySet());
+            Map<String, DataContainer.RawFile> raw = new HashMap<>();
+            for (String path : typeInfoParse.typeInfoMap.keySet()) {
+                var relative = CompiledConfigFile.relative(basePath, path);
+                var hash = compiled.hashes().get(relative);
+                // 同一文件的多个sheet共用一次哈希
+                var fingerprint = fingerprints.get(sourceFile(path));
+                if (hash == null || fingerprint == null || hash != fingerprint.hash()) {
+                    log.info("预编译数据已过期, 读取源文件 {}", path);
+                    return false;
                 }
+                raw.put(path, compiled.files().get(relative));
             }
+            long start = System.nanoTime();
+            var pool = new StringPool();
+            DataContainer newContainer;
+            try (var executor = new ForkJoinPool(parallelism)) {
+                var step = new DataContainer.StepWithRead(typeInfoParse.typeInfoMap, typeInfoParse.configTypeInfo, dataContainer.get(), executor);
+                newContainer = DataContainer.build(DataContainer.stage(metrics, LhotseMetrics.STAGE_READ, () -> step.merge(raw, pool)), metrics);
+            }
+            update(newContainer);
+            this.fingerprints.putAll(fingerprints);
+            report(newContainer, typeInfoParse.configTypeInfo.keySet(), pool, start);
+            return true;
+        } catch (Exception ex) {
+            log.warn("加载预编译数据失败, 读取源文件 {}", compiledPath, ex);
+            return false;
         }
     }
 
     /**
-     * 根据路径更新
+     * 根据路径更新, 同一Excel文件的所有sheet一起刷新
+     *
+     * @param changePaths 变化文件的绝对路径
      */
     void refreshForPath(Set<String> changePaths) {
-        refresh(changePaths.stream().map(e -> typeInfoParse.typeInfoMap.get(e))
-                .filter(Objects::nonNull)
+        var changed = changePaths.stream().filter(this::changed).collect(Collectors.toSet());
+        var types = typeInfoParse.typeInfoMap.entrySet().stream()
+                .filter(e -> changed.contains(sourceFile(e.getKey())))
+                .map(Map.Entry::getValue)
                 .flatMap(type -> {
                     if (type instanceof MultiTypeInfo multiTypeInfo) {
                         return Stream.of(multiTypeInfo.clazz());
                     }
                     return ((SingleTypeInfo) type).classes().stream();
-                }).collect(Collectors.toUnmodifiableSet()));
+                }).collect(Collectors.toUnmodifiableSet());
+        if (!types.isEmpty()) {
+            refresh(types);
+        }
+    }
+
+    /**
+     * 文件内容是否与上次加载时不同, 未加载过或无法读取视为变化
+     */
+    boolean changed(String file) {
+        var old = fingerprints.get(file);
+        if (old == null) {
+            return true;
+        }
+        try {
+            var current = old.check(Path.of(file));
+            if (current == null) {
+                return true;
+            }
+            fingerprints.put(file, current);
+            log.debug("文件内容未变化 {}", file);
+            return false;
+        } catch (LhotseException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * 计算配置对应源文件的指纹, 无法读取的文件跳过, 由读取时报错
+     *
+     * @param paths 配置路径, Excel带sheet
+     */
+    static Map<String, FileFingerprint> fingerprints(Collection<String> paths) {
+        Map<String, FileFingerprint> ret = new HashMap<>();
+        for (String path : paths) {
+            var file = sourceFile(path);
+            if (ret.containsKey(file)) {
+                continue;
+            }
+            try {
+                ret.put(file, FileFingerprint.of(Path.of(file)));
+            } catch (LhotseException ex) {
+                log.debug("计算文件指纹失败 {}", file, ex);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 配置路径对应的源文件, 去掉sheet
+     */
+    static String sourceFile(String path) {
+        return Path.of(ConfigReader.sourceFile(path)).normalize().toString();
     }
 
     /**
@@ -124,7 +298,7 @@ public class GlobalDataStorage {
      *
      * @param types 类型
      */
-    public void refresh(Set<Class<?>> types) {
+    public synchronized void refresh(Set<Class<?>> types) {
         Map<String, TypeInfo> configs = new HashMap<>();
         for (Class<?> type : types) {
             if (!type.isAnnotationPresent(StorageConfig.class)) {
@@ -135,50 +309,80 @@ public class GlobalDataStorage {
 
             configs.put(path, Objects.requireNonNull(typeInfoParse.typeInfoMap.get(path)));
         }
+        // 读取前计算, 读取期间的修改会在下次检查时发现
+        var fingerprints = fingerprints(configs.keySet());
+        long start = System.nanoTime();
+        var pool = new StringPool();
+        DataContainer newContainer;
+        try (var executor = new ForkJoinPool(parallelism)) {
+            newContainer = dataContainer.get().refresh(configs, typeInfoParse.configTypeInfo, executor, pool, metrics, pipelined);
+        } catch (RuntimeException ex) {
+            metrics.reloadFailed(ex);
+            throw ex;
+        }
+        update(newContainer);
+        this.fingerprints.putAll(fingerprints);
+        report(newContainer, types, pool, start);
+    }
+
+    /**
+     * 记录一次加载的结果
+     *
+     * @param types 本次加载的类
+     * @param start 开始时间, {@link System#nanoTime()}
+     */
+    void report(DataContainer container, Set<Class<?>> types, StringPool pool, long start) {
+        long nanos = System.nanoTime() - start;
+        var metrics = this.metrics;
+        for (Class<?> type : types) {
+            // 行数取自行哈希, 不触发延迟表创建对象
+            var hashes = container.rowHashes.get(type);
+            metrics.tableLoaded(type, hashes != null ? hashes.length : container.singleConfigData.containsKey(type) ? 1 : 0);
+        }
+        metrics.stringPool(pool.size(), pool.savedBytes());
+        metrics.reload(container.generation, nanos, types.size());
+        log.info("加载配置表{}张, 版本{}, 耗时{}ms", types.size(), container.generation, nanos / 1_000_000);
+        log.info("配置表字符串去重 {}个, 节省约{}字节", pool.size(), pool.savedBytes());
+    }
+
+    /**
+     * 替换数据, 快照查询不加锁, 写锁仅为兼容{@link #safeBatchQuery(Callable2)}
+     */
+    void update(DataContainer newContainer) {
         Lock.writeLock().lock();
         try {
-            this.dataContainer.set(dataContainer.get().refresh(configs, typeInfoParse.configTypeInfo));
+            this.dataContainer.set(newContainer);
         } finally {
             Lock.writeLock().unlock();
         }
+    }
 
+    /**
+     * 获取当前版本的快照, 之后的查询都基于该版本, 不受热更新影响
+     */
+    public ConfigSnapshot snapshot() {
+        return dataContainer.get().snapshot;
     }
 
-    @SuppressWarnings("unchecked")
     <ID extends Comparable<ID>, Config extends IConfig<ID>> List<Config> listConfig(Class<Config> clazz) {
-        var container = dataContainer.get();
-        if (!container.multiConfigData.containsKey(clazz)) {
-            return Collections.emptyList();
-        }
-        var map = container.multiConfigData.get(clazz);
-        return map.values().stream()
-                .map(e -> ((Config) e))
-                .toList();
+        return snapshot().list(clazz);
     }
 
-    @SuppressWarnings("unchecked")
     <ID extends Comparable<ID>, Config extends IConfig<ID>> Optional<Config> getConfig(Class<Config> clazz, ID id) {
-        var container = dataContainer.get();
-        if (!container.multiConfigData.containsKey(clazz)) {
-            return Optional.empty();
-        }
-        var map = container.multiConfigData.get(clazz);
-        return Optional.ofNullable(((Config) map.get(id)));
+        return snapshot().get(clazz, id);
     }
 
-    @SuppressWarnings("unchecked")
     <Config> Optional<Config> getSingleConfig(Class<Config> clazz) {
-        var container = dataContainer.get();
-        if (!container.singleConfigData.containsKey(clazz)) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(((Config) container.singleConfigData.get(clazz)));
+        return snapshot().getSingle(clazz);
     }
 
     /**
      * 安全查询
      * 保证查询时数据是安全的
+     *
+     * @deprecated 所有调用共享一把读写锁, 使用{@link #snapshot()}获取快照后查询
      */
+    @Deprecated
     public static <T1, T2> Tuple2<T1, T2> safeBatchQuery(Callable2<T1, T2> callable) {
         Lock.readLock().lock();
         try {
@@ -191,7 +395,10 @@ public class GlobalDataStorage {
     /**
      * 安全查询
      * 保证查询时数据是安全的
+     *
+     * @deprecated 所有调用共享一把读写锁, 使用{@link #snapshot()}获取快照后查询
      */
+    @Deprecated
     public static <T1, T2, T3> Tuple3<T1, T2, T3> safeBatchQuery(Callable3<T1, T2, T3> callable) {
         Lock.readLock().lock();
         try {
@@ -204,7 +411,10 @@ public class GlobalDataStorage {
     /**
      * 安全查询
      * 保证查询时数据是安全的
+     *
+     * @deprecated 所有调用共享一把读写锁, 使用{@link #snapshot()}获取快照后查询
      */
+    @Deprecated
     public static <T1, T2, T3, T4> Tuple4<T1, T2, T3, T4> safeBatchQuery(Callable4<T1, T2, T3, T4> callable) {
         Lock.readLock().lock();
         try {
@@ -217,7 +427,10 @@ public class GlobalDataStorage {
     /**
      * 安全查询
      * 保证查询时数据是安全的
+     *
+     * @deprecated 所有调用共享一把读写锁, 使用{@link #snapshot()}获取快照后查询
      */
+    @Deprecated
     public static <T1, T2, T3, T4, T5> Tuple5<T1, T2, T3, T4, T5> safeBatchQuery(Callable5<T1, T2, T3, T4, T5> callable) {
         Lock.readLock().lock();
         try {
@@ -230,7 +443,10 @@ public class GlobalDataStorage {
     /**
      * 安全查询
      * 保证查询时数据是安全的
+     *
+     * @deprecated 所有调用共享一把读写锁, 使用{@link #snapshot()}获取快照后查询
      */
+    @Deprecated
     public static <T1, T2, T3, T4, T5, T6> Tuple6<T1, T2, T3, T4, T5, T6> safeBatchQuery(Callable6<T1, T2, T3, T4, T5, T6> callable) {
         Lock.readLock().lock();
         try {
@@ -250,15 +466,16 @@ public class GlobalDataStorage {
         final Map<Class<?>, ConfigTypeInfo> configTypeInfo;
 
 
-        TypeInfoParse(String basePath, Set<Class<?>> types) {
+        TypeInfoParse(String basePath, Set<Class<?>> types, boolean streaming) {
             // 解析配置表类型
-            this.typeInfoMap = parsePathType(basePath, types);
+            this.typeInfoMap = parsePathType(basePath, types, streaming);
             this.configTypeInfo = parseConfig(types);
         }
 
-        Map<String, TypeInfo> parsePathType(String basePath, Set<Class<?>> types) {
+        Map<String, TypeInfo> parsePathType(String basePath, Set<Class<?>> types, boolean streaming) {
             Map<String, TypeInfo> typeInfoMap = new HashMap<>();
             Map<String, Set<Class<?>>> singleTypeMap = new HashMap<>();
+            Set<String> streamingPaths = new HashSet<>();
             for (Class<?> type : types) {
                 if (!type.isAnnotationPresent(StorageConfig.class)) {
                     throw new IllegalStateException("没有@StorageConfig注解, " + type.getName());
@@ -266,6 +483,9 @@ public class GlobalDataStorage {
                 var annotation = type.getAnnotation(StorageConfig.class);
                 // 拼全路径
                 var path = new File(basePath, annotation.path()).getAbsolutePath();
+                if (streaming || annotation.streaming()) {
+                    streamingPaths.add(path);
+                }
                 var singleConfig = type.getAnnotation(SingleConfig.class);
                 if (singleConfig != null) {
                     if (!singleTypeMap.containsKey(path)) {
@@ -273,10 +493,10 @@ public class GlobalDataStorage {
                     }
                     singleTypeMap.get(path).add(type);
                 } else {
-                    typeInfoMap.put(path, new MultiTypeInfo(type, path));
+                    typeInfoMap.put(path, new MultiTypeInfo(type, path, streaming || annotation.streaming()));
                 }
             }
-            singleTypeMap.forEach((k, v) -> typeInfoMap.put(k, new SingleTypeInfo(v, k)));
+            singleTypeMap.forEach((k, v) -> typeInfoMap.put(k, new SingleTypeInfo(v, k, streamingPaths.contains(k))));
             return typeInfoMap;
         }
 
@@ -285,20 +505,44 @@ public class GlobalDataStorage {
             for (Class<?> type : types) {
                 map.put(type, parseConfig(type));
             }
+            RefLinker.validate(map);
             return map;
         }
 
+        static boolean isOffHeap(Class<?> clazz) {
+            var annotation = clazz.getAnnotation(StorageConfig.class);
+            return annotation != null && annotation.offHeap() && IConfig.class.isAssignableFrom(clazz);
+        }
+
+        /**
+         * 堆外配置表本身就是查询时创建对象, 不再延迟
+         */
+        static boolean isLazy(Class<?> clazz) {
+            var annotation = clazz.getAnnotation(StorageConfig.class);
+            return annotation != null && annotation.lazy() && !isOffHeap(clazz) && IConfig.class.isAssignableFrom(clazz);
+        }
+
         ConfigTypeInfo parseConfig(Class<?> clazz) {
-            Set<FieldInfo> fieldInfos = new HashSet<>();
+            List<FieldInfo> fieldInfos = new ArrayList<>();
             for (RecordComponent recordComponent : clazz.getRecordComponents()) {
                 var annotation = recordComponent.getAnnotation(Custom.class);
-                if (annotation == null) {
-                    fieldInfos.add(new NormalFieldInfo(recordComponent.getName(), recordComponent.getType()));
+                var ref = recordComponent.getAnnotation(Ref.class);
+                if (ref != null) {
+                    fieldInfos.add(new RefFieldInfo(recordComponent.getName(), recordComponent.getGenericType(), ref.value()));
+                } else if (annotation == null) {
+                    fieldInfos.add(new NormalFieldInfo(recordComponent.getName(), recordComponent.getGenericType()));
                 } else {
-                    fieldInfos.add(new CustomFieldInfo(recordComponent.getName(), recordComponent.getType(), annotation.convertor()));
+                    fieldInfos.add(new CustomFieldInfo(recordComponent.getName(), recordComponent.getGenericType(), annotation.convertor()));
                 }
             }
-            return new ConfigTypeInfo(clazz, fieldInfos);
+            fieldInfos = List.copyOf(fieldInfos);
+            var ret = new ConfigTypeInfo(clazz, fieldInfos, RecordFactory.of(clazz), ConfigTypeInfo.idType(clazz),
+                    IndexInfo.parse(clazz), isOffHeap(clazz), isLazy(clazz), RecordLoader.of(clazz, fieldInfos));
+            // 加载时不创建对象, 只能从参数中取id
+            if ((ret.lazy() || ret.offHeap()) && ret.idIndex() < 0) {
+                throw new LhotseException("堆外和延迟创建的配置类需要名为id的record字段, id()为其访问方法, " + clazz.getName());
+            }
+            return ret;
         }
     }
 
@@ -0,0 +1,74 @@
+package org.lhotse.config.core;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * id为Integer的配置表查询, 使用基础类型存储和查询
+ *
+ * @param <Config> 对应类
+ */
+public interface IntStorage<Config extends IConfig<Integer>> extends Storage<Integer, Config> {
+
+    /**
+     * 获取配置表数据, id不装箱
+     */
+    Optional<Config> get(int id);
+
+    /**
+     * 获取配置表数据, id不装箱, 不存在返回null
+     */
+    @Nullable
+    Config getOrNull(int id);
+
+    /**
+     * 获取配置表数据, id不装箱, 不存在返回fallback
+     */
+    Config getOrDefault(int id, Config fallback);
+
+    /**
+     * 是否存在, id不装箱
+     */
+    boolean contains(int id);
+
+    /**
+     * 获取快照中的配置表数据, id不装箱
+     */
+    Optional<Config> get(@Nonnull ConfigSnapshot snapshot, int id);
+}
+
+class IntStorageImpl<Config extends IConfig<Integer>> extends StorageImpl<Integer, Config> implements IntStorage<Config> {
+
+    IntStorageImpl(Class<Config> clazz, GlobalDataStorage globalDataStorage) {
+        super(clazz, globalDataStorage);
+    }
+
+    @Override
+    public Optional<Config> get(int id) {
+        return Optional.ofNullable(getOrNull(id));
+    }
+
+    @Nullable
+    @Override
+    public Config getOrNull(int id) {
+        var table = table();
+        return lookup(table == null ? null : table.getInt(id));
+    }
+
+    @Override
+    public Config getOrDefault(int id, Config fallback) {
+        var ret = getOrNull(id);
+        return ret != null ? ret : fallback;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return getOrNull(id) != null;
+    }
+
+    @Override
+    public Optional<Config> get(@Nonnull ConfigSnapshot snapshot, int id) {
+        return lookup(snapshot.get(clazz, id));
+    }
+}
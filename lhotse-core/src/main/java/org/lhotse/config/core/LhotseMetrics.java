@@ -0,0 +1,96 @@
+package org.lhotse.config.core;
+
+/**
+ * 加载和查询指标, 默认不记录, 通过{@link GlobalDataStorage#setMetrics(LhotseMetrics)}设置<br>
+ * 加载时会在多个线程中调用, 实现需线程安全; 查询在热路径上调用, 实现应尽量轻量
+ */
+public interface LhotseMetrics {
+
+    LhotseMetrics NOOP = new LhotseMetrics() {
+    };
+
+    /**
+     * 读取文件
+     */
+    String STAGE_READ = "read";
+    /**
+     * 原始内容对应到配置类
+     */
+    String STAGE_PARSE_CONFIG = "parseConfig";
+    /**
+     * 解析字段
+     */
+    String STAGE_PARSE_FIELD = "parseField";
+    /**
+     * 创建对象和索引
+     */
+    String STAGE_TO_OBJECT = "toObject";
+    /**
+     * 逐行读取, 解析并创建对象, 只在流水线模式中
+     */
+    String STAGE_PIPELINE = "pipeline";
+
+    /**
+     * 读取单个文件
+     *
+     * @param path  配置路径, Excel带sheet
+     * @param nanos 耗时
+     * @param rows  行数
+     * @param bytes 文件大小
+     */
+    default void fileRead(String path, long nanos, int rows, long bytes) {
+    }
+
+    /**
+     * 加载的一个阶段
+     *
+     * @param stage          阶段, 见STAGE_*
+     * @param nanos          耗时
+     * @param allocatedBytes 阶段内JVM所有线程分配的内存, 包含其他业务线程, 只作估算; 不支持时为-1
+     */
+    default void stage(String stage, long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * 单张配置表加载完成
+     *
+     * @param clazz 配置类
+     * @param rows  行数
+     */
+    default void tableLoaded(Class<?> clazz, int rows) {
+    }
+
+    /**
+     * 一次加载或热更新完成
+     *
+     * @param generation 新的数据版本
+     * @param nanos      耗时
+     * @param tables     本次加载的配置表数量
+     */
+    default void reload(long generation, long nanos, int tables) {
+    }
+
+    /**
+     * 一次加载或热更新失败, 旧数据保留
+     */
+    default void reloadFailed(Throwable cause) {
+    }
+
+    /**
+     * 本次加载的字符串去重
+     *
+     * @param size       不同字符串数量
+     * @param savedBytes 节省的估算字节数
+     */
+    default void stringPool(int size, long savedBytes) {
+    }
+
+    /**
+     * 按id查询
+     *
+     * @param clazz 配置类
+     * @param hit   是否存在
+     */
+    default void lookup(Class<?> clazz, boolean hit) {
+    }
+}
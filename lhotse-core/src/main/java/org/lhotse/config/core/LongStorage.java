@@ -0,0 +1,74 @@
+package org.lhotse.config.core;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * id为Long的配置表查询, 使用基础类型存储和查询
+ *
+ * @param <Config> 对应类
+ */
+public interface LongStorage<Config extends IConfig<Long>> extends Storage<Long, Config> {
+
+    /**
+     * 获取配置表数据, id不装箱
+     */
+    Optional<Config> get(long id);
+
+    /**
+     * 获取配置表数据, id不装箱, 不存在返回null
+     */
+    @Nullable
+    Config getOrNull(long id);
+
+    /**
+     * 获取配置表数据, id不装箱, 不存在返回fallback
+     */
+    Config getOrDefault(long id, Config fallback);
+
+    /**
+     * 是否存在, id不装箱
+     */
+    boolean contains(long id);
+
+    /**
+     * 获取快照中的配置表数据, id不装箱
+     */
+    Optional<Config> get(@Nonnull ConfigSnapshot snapshot, long id);
+}
+
+class LongStorageImpl<Config extends IConfig<Long>> extends StorageImpl<Long, Config> implements LongStorage<Config> {
+
+    LongStorageImpl(Class<Config> clazz, GlobalDataStorage globalDataStorage) {
+        super(clazz, globalDataStorage);
+    }
+
+    @Override
+    public Optional<Config> get(long id) {
+        return Optional.ofNullable(getOrNull(id));
+    }
+
+    @Nullable
+    @Override
+    public Config getOrNull(long id) {
+        var table = table();
+        return lookup(table == null ? null : table.getLong(id));
+    }
+
+    @Override
+    public Config getOrDefault(long id, Config fallback) {
+        var ret = getOrNull(id);
+        return ret != null ? ret : fallback;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return getOrNull(id) != null;
+    }
+
+    @Override
+    public Optional<Config> get(@Nonnull ConfigSnapshot snapshot, long id) {
+        return lookup(snapshot.get(clazz, id));
+    }
+}
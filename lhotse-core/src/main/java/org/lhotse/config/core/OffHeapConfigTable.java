@@ -0,0 +1,356 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 堆外配置表, 原始内容按列保存在直接内存中, 查询时才解析字段并创建对象<br>
+ * 同一id每次查询返回新对象, 堆内只保留id到行号的基础类型数组
+ */
+@SuppressWarnings("rawtypes")
+final class OffHeapConfigTable extends ConfigTable {
+
+    final ConfigTypeInfo typeInfo;
+    /**
+     * 与{@link ConfigTypeInfo#fieldInfos()}顺序一致
+     */
+    final OffHeapColumn[] columns;
+    final RowIndex rowIndex;
+    /**
+     * 按id排序的行号, 首次使用时创建, 只缓存行号不缓存对象
+     */
+    private volatile int[] sortedRows;
+
+    private OffHeapConfigTable(ConfigTypeInfo typeInfo, OffHeapColumn[] columns, RowIndex rowIndex, int size) {
+        super(new RowList(size), List.of());
+        this.typeInfo = typeInfo;
+        this.columns = columns;
+        this.rowIndex = rowIndex;
+        ((RowList) values).table = this;
+    }
+
+    /**
+     * 保存原始内容, 字段已在解析阶段校验<br>
+     * 按id字段的参数建立行号索引, 试创建第一行校验id()与id字段一致
+     */
+    static OffHeapConfigTable of(ConfigTypeInfo typeInfo, List<DataContainer.ConfigData> rows) {
+        if (!typeInfo.indexInfos().isEmpty()) {
+            throw new LhotseException("堆外配置表不支持索引, " + typeInfo.clazz().getName());
+        }
+        var fieldInfos = typeInfo.fieldInfos();
+        int idIndex = typeInfo.idIndex();
+        var columns = new OffHeapColumn[fieldInfos.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new OffHeapColumn(rows.size());
+        }
+        var rowIndex = RowIndex.of(typeInfo.idType(), rows.size());
+        for (int row = 0; row < rows.size(); row++) {
+            var data = rows.get(row);
+            var id = data.args[idIndex];
+            if (id == null) {
+                throw new LhotseException("id不能为空: " + data.raw);
+            }
+            rowIndex.put(id, row);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(data.raw.get(fieldInfos.get(i).name()));
+            }
+        }
+        var ret = new OffHeapConfigTable(typeInfo, columns, rowIndex, rows.size());
+        // 构造方法或id()改写了id时, 按参数建立的行号索引与查询结果的id()不一致
+        if (!rows.isEmpty()) {
+            var id = rows.get(0).args[idIndex];
+            var probe = ret.materialize(0);
+            if (!id.equals(probe.id())) {
+                throw new LhotseException("id()与id字段不一致 " + id + ", " + probe.id() + ", " + typeInfo.clazz().getName());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 解析一行并创建对象
+     */
+    IConfig materialize(int row) {
+        var fieldInfos = typeInfo.fieldInfos();
+        Object[] args = new Object[columns.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = fieldInfos.get(i).getRealValue(columns[i].get(row));
+        }
+        return (IConfig) typeInfo.factory().create(args);
+    }
+
+    /**
+     * 按id排序, 访问时才创建对象
+     */
+    @Override
+    List<IConfig> sortedValues() {
+        var rows = sortedRows;
+        if (rows == null) {
+            rows = rowIndex.sortedRows();
+            sortedRows = rows;
+        }
+        var ret = new RowList(rows.length, rows);
+        ret.table = this;
+        return ret;
+    }
+
+    @Override
+    IConfig get(Object id) {
+        var row = rowIndex.get(id);
+        return row < 0 ? null : materialize(row);
+    }
+
+    @Override
+    IConfig getInt(int id) {
+        return getLong(id);
+    }
+
+    @Override
+    IConfig getLong(long id) {
+        var row = rowIndex.getLong(id);
+        return row < 0 ? null : materialize(row);
+    }
+
+    /**
+     * 按行号创建对象的只读列表
+     */
+    static final class RowList extends AbstractList<IConfig> implements RandomAccess {
+
+        final int size;
+        /**
+         * 列表下标对应的行号, 为null时与行号相同
+         */
+        final int[] rows;
+        OffHeapConfigTable table;
+
+        RowList(int size) {
+            this(size, null);
+        }
+
+        RowList(int size, int[] rows) {
+            this.size = size;
+            this.rows = rows;
+        }
+
+        @Override
+        public IConfig get(int index) {
+            Objects.checkIndex(index, size);
+            return table.materialize(rows == null ? index : rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * id到行号, 不存在返回-1
+     */
+    static abstract class RowIndex {
+
+        abstract void put(Object id, int row);
+
+        abstract int get(Object id);
+
+        abstract int getLong(long id);
+
+        /**
+         * 按id排序的行号
+         */
+        abstract int[] sortedRows();
+
+        static RowIndex of(Class<?> idType, int size) {
+            if (idType == Integer.class || idType == Long.class) {
+                return new LongRowIndex(idType, size);
+            }
+            return new HashRowIndex(size);
+        }
+    }
+
+    /**
+     * Integer和Long id, 开放寻址
+     */
+    static final class LongRowIndex extends RowIndex {
+
+        final Class<?> idType;
+        final long[] keys;
+        /**
+         * 行号+1, 0为空
+         */
+        final int[] rows;
+        final int mask;
+
+        LongRowIndex(Class<?> idType, int size) {
+            this.idType = idType;
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.rows = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        void put(Object id, int row) {
+            long key = ((Number) id).longValue();
+            int index = LongConfigTable.hash(key) & mask;
+            while (rows[index] != 0) {
+                if (keys[index] == key) {
+                    throw duplicateId(id);
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            rows[index] = row + 1;
+        }
+
+        @Override
+        int get(Object id) {
+            if (id == null || id.getClass() != idType) {
+                return -1;
+            }
+            return getLong(((Number) id).longValue());
+        }
+
+        @Override
+        int getLong(long id) {
+            int index = LongConfigTable.hash(id) & mask;
+            int row;
+            while ((row = rows[index]) != 0) {
+                if (keys[index] == id) {
+                    return row - 1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * 对基础类型的id排序后逐个查行号
+         */
+        @Override
+        int[] sortedRows() {
+            int size = 0;
+            for (int row : rows) {
+                if (row != 0) {
+                    size++;
+                }
+            }
+            long[] ids = new long[size];
+            int i = 0;
+            for (int index = 0; index < rows.length; index++) {
+                if (rows[index] != 0) {
+                    ids[i++] = keys[index];
+                }
+            }
+            Arrays.sort(ids);
+            int[] ret = new int[size];
+            for (i = 0; i < size; i++) {
+                ret[i] = getLong(ids[i]);
+            }
+            return ret;
+        }
+    }
+
+    static final class HashRowIndex extends RowIndex {
+
+        final Map<Object, Integer> rows;
+
+        HashRowIndex(int size) {
+            this.rows = HashMap.newHashMap(size);
+        }
+
+        @Override
+        void put(Object id, int row) {
+            if (rows.put(id, row) != null) {
+                throw duplicateId(id);
+            }
+        }
+
+        @Override
+        int get(Object id) {
+            return rows.getOrDefault(id, -1);
+        }
+
+        @Override
+        int getLong(long id) {
+            return -1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int[] sortedRows() {
+            return rows.entrySet().stream()
+                    .sorted((a, b) -> ((Comparable) a.getKey()).compareTo(b.getKey()))
+                    .mapToInt(Map.Entry::getValue)
+                    .toArray();
+        }
+    }
+}
+
+/**
+ * 直接内存中的一列字符串, UTF-8编码<br>
+ * 内容分块保存, 每块不超过{@link #MAX_CHUNK}; 每行在位置表中占12字节: 块号(4) | 块内偏移(4) | 长度(4), 长度-1表示空
+ */
+final class OffHeapColumn {
+
+    static final int MIN_CHUNK = 64 * 1024;
+    static final int MAX_CHUNK = 16 * 1024 * 1024;
+    static final int ENTRY = 12;
+
+    final List<ByteBuffer> chunks = new ArrayList<>();
+    final ByteBuffer positions;
+    int size;
+
+    OffHeapColumn(int rows) {
+        this.positions = ByteBuffer.allocateDirect(Math.multiplyExact(rows, ENTRY));
+    }
+
+    void add(String value) {
+        int entry = size * ENTRY;
+        size++;
+        if (value == null) {
+            positions.putInt(entry + 8, -1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        var chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < bytes.length) {
+            // 块大小翻倍增长
+            int capacity = chunk == null ? MIN_CHUNK : Math.min(chunk.capacity() * 2, MAX_CHUNK);
+            chunk = ByteBuffer.allocateDirect(Math.max(capacity, bytes.length));
+            chunks.add(chunk);
+        }
+        positions.putInt(entry, chunks.size() - 1);
+        positions.putInt(entry + 4, chunk.position());
+        positions.putInt(entry + 8, bytes.length);
+        chunk.put(bytes);
+    }
+
+    /**
+     * 只使用绝对位置读取, 可并发调用
+     */
+    String get(int row) {
+        int entry = row * ENTRY;
+        int length = positions.getInt(entry + 8);
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        chunks.get(positions.getInt(entry)).get(positions.getInt(entry + 4), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    long offHeapBytes() {
+        long ret = positions.capacity();
+        for (ByteBuffer chunk : chunks) {
+            ret += chunk.capacity();
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,95 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+
+/**
+ * 配置类构造器, 每个类只创建一次<br>
+ * 参数按record字段顺序传入, 不再逐行查找构造方法和字段<br>
+ * 配置类和构造方法需对本包可访问, 否则在初始化时报错而不是首次创建对象时
+ */
+final class RecordFactory {
+
+    static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    final Class<?> clazz;
+    /**
+     * (Object[])Object
+     */
+    final MethodHandle constructor;
+    /**
+     * (Object)Object 按record字段顺序的访问方法
+     */
+    final MethodHandle[] accessors;
+
+    private RecordFactory(Class<?> clazz, MethodHandle constructor, MethodHandle[] accessors) {
+        this.clazz = clazz;
+        this.constructor = constructor;
+        this.accessors = accessors;
+    }
+
+    static RecordFactory of(Class<?> clazz) {
+        if (!clazz.isRecord()) {
+            throw new LhotseException("配置类必须为record, " + clazz.getName());
+        }
+        var recordComponents = clazz.getRecordComponents();
+        Class<?>[] argsType = new Class<?>[recordComponents.length];
+        MethodHandle[] accessors = new MethodHandle[recordComponents.length];
+        try {
+            int i = 0;
+            for (RecordComponent recordComponent : recordComponents) {
+                argsType[i] = recordComponent.getType();
+                accessors[i] = LOOKUP.unreflect(recordComponent.getAccessor())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                i++;
+            }
+            var constructor = LOOKUP.findConstructor(clazz, MethodType.methodType(void.class, argsType))
+                    .asSpreader(Object[].class, argsType.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new RecordFactory(clazz, constructor, accessors);
+        } catch (Throwable ex) {
+            throw new LhotseException("获取构造方法失败, " + clazz.getName(), ex);
+        }
+    }
+
+    /**
+     * 创建对象
+     *
+     * @param args 按record字段顺序的参数
+     */
+    Object create(Object[] args) {
+        try {
+            return constructor.invokeExact(args);
+        } catch (Throwable ex) {
+            throw new LhotseException("生成对象异常, " + clazz.getName(), ex);
+        }
+    }
+
+    /**
+     * 读取字段
+     *
+     * @param index record字段序号
+     */
+    Object get(Object record, int index) {
+        try {
+            return accessors[index].invokeExact(record);
+        } catch (Throwable ex) {
+            throw new LhotseException("读取字段异常, " + clazz.getName(), ex);
+        }
+    }
+
+    /**
+     * 按record字段顺序读取所有字段
+     */
+    Object[] args(Object record) {
+        Object[] ret = new Object[accessors.length];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = get(record, i);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,204 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.*;
+
+/**
+ * 配置类的编译期生成加载器, 逐个字段解析后直接调用构造方法, 不经过反射和Object[]参数<br>
+ * 由@GenerateStorage的注解处理器生成, 通过{@link ServiceLoader}注册, 没有加载器的类使用反射创建<br>
+ * 堆外和延迟创建的表仍使用反射, 集合, 枚举, 自定义和引用字段通过{@link #parse(int, String)}使用运行时的字段解析器
+ *
+ * @param <T> 配置类
+ */
+public abstract class RecordLoader<T> {
+
+    /**
+     * 配置类: 加载器类, 首次使用时加载
+     */
+    private static volatile Map<Class<?>, Class<?>> loaders;
+
+    final Class<T> type;
+    /**
+     * 与record字段顺序一致, 注册时绑定
+     */
+    private List<FieldInfo> fieldInfos;
+    /**
+     * 字符串字段名, 读取时去重
+     */
+    private Set<String> pooledFields;
+
+    protected RecordLoader(Class<T> type) {
+        this.type = type;
+    }
+
+    public final Class<T> type() {
+        return type;
+    }
+
+    /**
+     * 创建对象
+     *
+     * @param row 字段名: 原文
+     */
+    protected abstract T load(Map<String, String> row);
+
+    /**
+     * 使用运行时的字段解析器
+     *
+     * @param index record字段序号
+     */
+    protected final Object parse(int index, String raw) {
+        return fieldInfos.get(index).getRealValue(raw);
+    }
+
+    // 基础类型和字符串字段, 使用与运行时相同的字段解析器, 不经过Object[]参数
+
+    protected static String parseString(String raw) {
+        return raw;
+    }
+
+    protected static boolean parseBoolean(String raw) {
+        return raw == null ? false : (Boolean) FieldParsers.BOOLEAN.parse(raw);
+    }
+
+    protected static Boolean parseBooleanOrNull(String raw) {
+        return raw == null ? null : (Boolean) FieldParsers.BOOLEAN.parse(raw);
+    }
+
+    protected static byte parseByte(String raw) {
+        return raw == null ? (byte) 0 : (Byte) FieldParsers.BYTE.parse(raw);
+    }
+
+    protected static Byte parseByteOrNull(String raw) {
+        return raw == null ? null : (Byte) FieldParsers.BYTE.parse(raw);
+    }
+
+    protected static short parseShort(String raw) {
+        return raw == null ? (short) 0 : (Short) FieldParsers.SHORT.parse(raw);
+    }
+
+    protected static Short parseShortOrNull(String raw) {
+        return raw == null ? null : (Short) FieldParsers.SHORT.parse(raw);
+    }
+
+    protected static int parseInt(String raw) {
+        return raw == null ? 0 : (Integer) FieldParsers.INT.parse(raw);
+    }
+
+    protected static Integer parseIntOrNull(String raw) {
+        return raw == null ? null : (Integer) FieldParsers.INT.parse(raw);
+    }
+
+    protected static long parseLong(String raw) {
+        return raw == null ? 0L : (Long) FieldParsers.LONG.parse(raw);
+    }
+
+    protected static Long parseLongOrNull(String raw) {
+        return raw == null ? null : (Long) FieldParsers.LONG.parse(raw);
+    }
+
+    protected static float parseFloat(String raw) {
+        return raw == null ? 0F : (Float) FieldParsers.FLOAT.parse(raw);
+    }
+
+    protected static Float parseFloatOrNull(String raw) {
+        return raw == null ? null : (Float) FieldParsers.FLOAT.parse(raw);
+    }
+
+    protected static double parseDouble(String raw) {
+        return raw == null ? 0. : (Double) FieldParsers.DOUBLE.parse(raw);
+    }
+
+    protected static Double parseDoubleOrNull(String raw) {
+        return raw == null ? null : (Double) FieldParsers.DOUBLE.parse(raw);
+    }
+
+    /**
+     * 创建对象, 异常附带原始内容
+     */
+    final T create(Map<String, String> row, StringPool pool) {
+        try {
+            return load(pool == null || pooledFields.isEmpty() ? row : new PooledRow(row, pooledFields, pool));
+        } catch (RuntimeException ex) {
+            throw new LhotseException("生成对象失败 " + type.getName() + ", " + row, ex);
+        }
+    }
+
+    /**
+     * 创建配置类的加载器, 没有注册时返回null
+     *
+     * @param fieldInfos 与record字段顺序一致
+     */
+    static RecordLoader<?> of(Class<?> clazz, List<FieldInfo> fieldInfos) {
+        var loaderClass = loaders().get(clazz);
+        if (loaderClass == null) {
+            return null;
+        }
+        RecordLoader<?> ret;
+        try {
+            ret = (RecordLoader<?>) loaderClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new LhotseException("初始化加载器失败, " + loaderClass.getName(), ex);
+        }
+        ret.fieldInfos = fieldInfos;
+        Set<String> pooledFields = new HashSet<>();
+        for (FieldInfo fieldInfo : fieldInfos) {
+            if (fieldInfo.pooled()) {
+                pooledFields.add(fieldInfo.name());
+            }
+        }
+        ret.pooledFields = Set.copyOf(pooledFields);
+        return ret;
+    }
+
+    static Map<Class<?>, Class<?>> loaders() {
+        var ret = loaders;
+        if (ret == null) {
+            synchronized (RecordLoader.class) {
+                ret = loaders;
+                if (ret == null) {
+                    Map<Class<?>, Class<?>> map = new HashMap<>();
+                    for (RecordLoader<?> loader : ServiceLoader.load(RecordLoader.class)) {
+                        map.put(loader.type, loader.getClass());
+                    }
+                    ret = Map.copyOf(map);
+                    loaders = ret;
+                }
+            }
+        }
+        return ret;
+    }
+}
+
+/**
+ * 原始行的只读视图, 读取字符串字段时去重, 不复制行
+ */
+final class PooledRow extends AbstractMap<String, String> {
+
+    private final Map<String, String> row;
+    private final Set<String> pooledFields;
+    private final StringPool pool;
+
+    PooledRow(Map<String, String> row, Set<String> pooledFields, StringPool pool) {
+        this.row = row;
+        this.pooledFields = pooledFields;
+        this.pool = pool;
+    }
+
+    @Override
+    public String get(Object key) {
+        var value = row.get(key);
+        return pooledFields.contains(key) ? pool.intern(value) : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return row.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return Collections.unmodifiableMap(row).entrySet();
+    }
+}
@@ -0,0 +1,189 @@
+package org.lhotse.config.core;
+
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * 关联配置表之间的引用, 每次加载创建对象后执行<br>
+ * 已发布对象中的引用不会修改: 目标已变化的行, 以及直接或间接引用这些行的行, 都重新创建后再关联
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class RefLinker {
+
+    final Map<Class<?>, ConfigTable> multiConfigData;
+    final Map<Class<?>, Object> singleConfigData;
+    final Map<Class<?>, ConfigTypeInfo> typeInfo;
+    /**
+     * 有引用字段的类: 引用字段序号
+     */
+    final Map<Class<?>, int[]> refFields = new HashMap<>();
+
+    private RefLinker(Map<Class<?>, ConfigTable> multiConfigData, Map<Class<?>, Object> singleConfigData,
+                      Map<Class<?>, ConfigTypeInfo> typeInfo) {
+        this.multiConfigData = multiConfigData;
+        this.singleConfigData = singleConfigData;
+        this.typeInfo = typeInfo;
+        typeInfo.forEach((clazz, info) -> {
+            var fields = refFields(info);
+            if (fields.length > 0 && (multiConfigData.containsKey(clazz) || singleConfigData.containsKey(clazz))) {
+                refFields.put(clazz, fields);
+            }
+        });
+    }
+
+    /**
+     * 关联引用, 需要重新创建的表直接替换
+     *
+     * @param multiConfigData  新版本的多数据配置表, 会被修改
+     * @param singleConfigData 新版本的单配置表, 会被修改
+     */
+    static void link(Map<Class<?>, ConfigTable> multiConfigData, Map<Class<?>, Object> singleConfigData,
+                     Map<Class<?>, ConfigTypeInfo> typeInfo, Executor executor) {
+        var linker = new RefLinker(multiConfigData, singleConfigData, typeInfo);
+        if (linker.refFields.isEmpty()) {
+            return;
+        }
+        linker.recreate(linker.stale());
+        DataContainer.runAll(executor, linker.refFields, DataContainer::configName, (clazz, fields) -> {
+            linker.resolve(clazz, fields);
+            return clazz;
+        });
+    }
+
+    /**
+     * 校验引用关系, 注册时调用
+     */
+    static void validate(Map<Class<?>, ConfigTypeInfo> typeInfo) {
+        typeInfo.forEach((clazz, info) -> {
+            for (FieldInfo fieldInfo : info.fieldInfos()) {
+                if (!(fieldInfo instanceof RefFieldInfo ref)) {
+                    continue;
+                }
+                if (info.offHeap() || info.lazy()) {
+                    throw new LhotseException("堆外或延迟创建的配置表不支持引用, " + clazz.getName());
+                }
+                var target = typeInfo.get(ref.target);
+                if (target == null) {
+                    throw new LhotseException("引用的配置表未注册, " + clazz.getName() + "." + ref.name + " -> " + ref.target.getName());
+                }
+                if (target.offHeap() || target.lazy()) {
+                    throw new LhotseException("不能引用堆外或延迟创建的配置表, " + clazz.getName() + "." + ref.name);
+                }
+            }
+        });
+    }
+
+    static int[] refFields(ConfigTypeInfo info) {
+        var fieldInfos = info.fieldInfos();
+        return IntStream.range(0, fieldInfos.size())
+                .filter(i -> fieldInfos.get(i) instanceof RefFieldInfo)
+                .toArray();
+    }
+
+    List<Object> rows(Class<?> clazz) {
+        var table = multiConfigData.get(clazz);
+        return table != null ? (List) table.values : List.of(singleConfigData.get(clazz));
+    }
+
+    IConfig lookup(ConfigRef<?> ref) {
+        var table = multiConfigData.get(ref.type);
+        return table == null ? null : table.get(ref.id);
+    }
+
+    /**
+     * 需要重新创建的对象: 已关联的引用目标不是当前版本的对象, 以及引用这些对象的对象
+     */
+    Set<Object> stale() {
+        Set<Object> ret = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Object, List<Object>> referrers = new IdentityHashMap<>();
+        Deque<Object> queue = new ArrayDeque<>();
+        refFields.forEach((clazz, fields) -> {
+            var factory = typeInfo.get(clazz).factory();
+            for (Object row : rows(clazz)) {
+                for (int field : fields) {
+                    var ref = (ConfigRef<?>) factory.get(row, field);
+                    // 本次新建的引用最后统一关联
+                    if (ref == null || ref.target == null) {
+                        continue;
+                    }
+                    referrers.computeIfAbsent(ref.target, k -> new ArrayList<>()).add(row);
+                    if (lookup(ref) != ref.target && ret.add(row)) {
+                        queue.add(row);
+                    }
+                }
+            }
+        });
+        while (!queue.isEmpty()) {
+            for (Object referrer : referrers.getOrDefault(queue.poll(), List.of())) {
+                if (ret.add(referrer)) {
+                    queue.add(referrer);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 重新创建对象, 引用字段替换为未关联的新引用
+     */
+    void recreate(Set<Object> stale) {
+        if (stale.isEmpty()) {
+            return;
+        }
+        refFields.forEach((clazz, fields) -> {
+            var info = typeInfo.get(clazz);
+            var rows = rows(clazz);
+            if (rows.stream().noneMatch(stale::contains)) {
+                return;
+            }
+            List<Object> values = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                if (!stale.contains(row)) {
+                    values.add(row);
+                    continue;
+                }
+                var args = info.factory().args(row);
+                for (int field : fields) {
+                    if (args[field] instanceof ConfigRef<?> ref) {
+                        args[field] = new ConfigRef<>(ref.type, ref.id);
+                    }
+                }
+                values.add(info.factory().create(args));
+            }
+            if (multiConfigData.containsKey(clazz)) {
+                multiConfigData.put(clazz, ConfigTable.of(info.idType(), info.indexInfos(), (List) values));
+            } else {
+                singleConfigData.put(clazz, values.get(0));
+            }
+        });
+    }
+
+    /**
+     * 关联一个类中所有未关联的引用, 不存在的目标汇总后抛出
+     */
+    void resolve(Class<?> clazz, int[] fields) {
+        var factory = typeInfo.get(clazz).factory();
+        var fieldInfos = typeInfo.get(clazz).fieldInfos();
+        List<String> missing = new ArrayList<>();
+        for (Object row : rows(clazz)) {
+            for (int field : fields) {
+                var ref = (ConfigRef) factory.get(row, field);
+                if (ref == null || ref.target != null) {
+                    continue;
+                }
+                var target = lookup(ref);
+                if (target == null) {
+                    missing.add(fieldInfos.get(field).name() + " -> " + ref);
+                } else {
+                    ref.target = target;
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new LhotseException("引用不存在, 共" + missing.size() + "项: " + String.join(", ", missing.subList(0, Math.min(missing.size(), 10))));
+        }
+    }
+}
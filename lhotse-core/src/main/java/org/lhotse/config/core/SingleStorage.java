@@ -1,5 +1,7 @@
 package org.lhotse.config.core;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Optional;
 
 /**
@@ -14,6 +16,21 @@ public interface SingleStorage<Config> {
      */
     Optional<Config> tryGet();
 
+    /**
+     * 获取配置表数据, 不存在返回null, 不创建Optional
+     */
+    @Nullable
+    default Config getOrNull() {
+        return tryGet().orElse(null);
+    }
+
+    /**
+     * 获取快照中的配置表数据, 默认实现不支持快照
+     */
+    default Optional<Config> tryGet(@Nonnull ConfigSnapshot snapshot) {
+        throw new UnsupportedOperationException("不支持快照查询");
+    }
+
     /**
      * 用户认为一定不为空
      */
@@ -33,6 +50,18 @@ class SingleStorageImpl<Config> implements SingleStorage<Config> {
 
     @Override
     public Optional<Config> tryGet() {
-        return globalDataStorage.getSingleConfig(clazz);
+        return Optional.ofNullable(getOrNull());
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public Config getOrNull() {
+        return (Config) globalDataStorage.dataContainer.get().singleConfigData.get(clazz);
+    }
+
+    @Override
+    public Optional<Config> tryGet(@Nonnull ConfigSnapshot snapshot) {
+        return snapshot.getSingle(clazz);
     }
 }
@@ -1,11 +1,16 @@
 package org.lhotse.config.core;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
- * 配置表查询
+ * 配置表查询<br>
+ * 除{@link #listConfig()}和{@link #get}外均有基于这两个方法的默认实现, 由{@link StorageFactory}创建的实现直接查询配置表
  *
  * @param <ID>     主键
  * @param <Config> 对应类
@@ -13,7 +18,7 @@ import java.util.Optional;
 public interface Storage<ID extends Comparable<ID>, Config extends IConfig<ID>> {
 
     /**
-     * 获取所有数据
+     * 获取所有数据, 按文件中行顺序的不可变列表, 同一版本每次返回同一对象
      */
     @Nonnull
     List<Config> listConfig();
@@ -22,12 +27,112 @@ public interface Storage<ID extends Comparable<ID>, Config extends IConfig<ID>>
      * 获取配置表数据
      */
     Optional<Config> get(@Nonnull ID id);
+
+    /**
+     * 获取所有数据, 按id排序的不可变列表
+     */
+    @Nonnull
+    default List<Config> listSortedById() {
+        return listConfig().stream().sorted(Comparator.comparing(IConfig::id)).toList();
+    }
+
+    /**
+     * 按文件中行顺序遍历, 不创建迭代器
+     */
+    default void forEach(@Nonnull Consumer<? super Config> action) {
+        listConfig().forEach(action);
+    }
+
+    /**
+     * 按文件中行顺序遍历当前版本数据
+     */
+    @Nonnull
+    default Spliterator<Config> spliterator() {
+        return listConfig().spliterator();
+    }
+
+    /**
+     * 获取配置表数据, 不存在返回null, 不创建Optional
+     */
+    @Nullable
+    default Config getOrNull(@Nonnull ID id) {
+        return get(id).orElse(null);
+    }
+
+    /**
+     * 获取配置表数据, 不存在返回fallback
+     */
+    default Config getOrDefault(@Nonnull ID id, Config fallback) {
+        return get(id).orElse(fallback);
+    }
+
+    /**
+     * 是否存在
+     */
+    default boolean contains(@Nonnull ID id) {
+        return get(id).isPresent();
+    }
+
+    /**
+     * 获取快照中的所有数据, 默认实现不支持快照
+     */
+    @Nonnull
+    default List<Config> listConfig(@Nonnull ConfigSnapshot snapshot) {
+        throw new UnsupportedOperationException("不支持快照查询");
+    }
+
+    /**
+     * 获取快照中的配置表数据
+     */
+    default Optional<Config> get(@Nonnull ConfigSnapshot snapshot, @Nonnull ID id) {
+        return listConfig(snapshot).stream().filter(e -> id.equals(e.id())).findFirst();
+    }
+
+    /**
+     * 根据索引查询, 返回按文件中行顺序的不可变列表, 默认实现遍历所有数据
+     *
+     * @param indexName 索引名
+     * @param key       字段值
+     */
+    @Nonnull
+    default List<Config> findBy(@Nonnull String indexName, @Nonnull Object key) {
+        return IndexInfo.scan(listConfig(), indexName, key);
+    }
+
+    /**
+     * 根据唯一索引查询
+     *
+     * @param indexName 索引名
+     * @param key       字段值
+     */
+    default Optional<Config> findUniqueBy(@Nonnull String indexName, @Nonnull Object key) {
+        return findBy(indexName, key).stream().findFirst();
+    }
+
+    /**
+     * 根据快照中的索引查询
+     */
+    @Nonnull
+    default List<Config> findBy(@Nonnull ConfigSnapshot snapshot, @Nonnull String indexName, @Nonnull Object key) {
+        return IndexInfo.scan(listConfig(snapshot), indexName, key);
+    }
+
+    /**
+     * 根据快照中的唯一索引查询
+     */
+    default Optional<Config> findUniqueBy(@Nonnull ConfigSnapshot snapshot, @Nonnull String indexName, @Nonnull Object key) {
+        return findBy(snapshot, indexName, key).stream().findFirst();
+    }
 }
 
 class StorageImpl<ID extends Comparable<ID>, Config extends IConfig<ID>> implements Storage<ID, Config> {
 
-    private final Class<Config> clazz;
-    private final GlobalDataStorage globalDataStorage;
+    final Class<Config> clazz;
+    final GlobalDataStorage globalDataStorage;
+    /**
+     * 最近一次查询的数据版本及对应配置表, 版本变化时重新获取
+     */
+    private volatile TableCache cache;
 
     StorageImpl(Class<Config> clazz, GlobalDataStorage globalDataStorage) {
         this.clazz = clazz;
@@ -40,8 +145,114 @@ class StorageImpl<ID extends Comparable<ID>, Config extends IConfig<ID>> impleme
         return globalDataStorage.listConfig(clazz);
     }
 
+    @Nonnull
+    @Override
+    public List<Config> listSortedById() {
+        return globalDataStorage.snapshot().listSortedById(clazz);
+    }
+
+    @Override
+    public void forEach(@Nonnull Consumer<? super Config> action) {
+        var values = listConfig();
+        for (int i = 0, size = values.size(); i < size; i++) {
+            action.accept(values.get(i));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Spliterator<Config> spliterator() {
+        return listConfig().spliterator();
+    }
+
     @Override
     public Optional<Config> get(@Nonnull ID id) {
-        return globalDataStorage.getConfig(clazz, id);
+        return Optional.ofNullable(getOrNull(id));
+    }
+
+    @Nullable
+    @Override
+    public Config getOrNull(@Nonnull ID id) {
+        var table = table();
+        return lookup(table == null ? null : table.get(id));
+    }
+
+    @Override
+    public Config getOrDefault(@Nonnull ID id, Config fallback) {
+        var ret = getOrNull(id);
+        return ret != null ? ret : fallback;
+    }
+
+    @Override
+    public boolean contains(@Nonnull ID id) {
+        return getOrNull(id) != null;
+    }
+
+    /**
+     * 当前版本的配置表, 不存在返回null<br>
+     * 同一版本只从{@link DataContainer}获取一次, 之后的查询只有配置表本身的一次查找
+     */
+    ConfigTable table() {
+        var container = globalDataStorage.dataContainer.get();
+        var cache = this.cache;
+        if (cache == null || cache.container != container) {
+            cache = new TableCache(container, container.table(clazz));
+            this.cache = cache;
+        }
+        return cache.table;
+    }
+
+    @Nonnull
+    @Override
+    public List<Config> listConfig(@Nonnull ConfigSnapshot snapshot) {
+        return snapshot.list(clazz);
+    }
+
+    @Override
+    public Optional<Config> get(@Nonnull ConfigSnapshot snapshot, @Nonnull ID id) {
+        return lookup(snapshot.get(clazz, id));
+    }
+
+    /**
+     * 记录按id查询是否命中
+     */
+    Optional<Config> lookup(Optional<Config> ret) {
+        if (globalDataStorage.lookupMetrics) {
+            globalDataStorage.metrics.lookup(clazz, ret.isPresent());
+        }
+        return ret;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Config lookup(IConfig ret) {
+        if (globalDataStorage.lookupMetrics) {
+            globalDataStorage.metrics.lookup(clazz, ret != null);
+        }
+        return (Config) ret;
+    }
+
+    record TableCache(DataContainer container, ConfigTable table) {
+    }
+
+    @Nonnull
+    @Override
+    public List<Config> findBy(@Nonnull String indexName, @Nonnull Object key) {
+        return globalDataStorage.snapshot().findBy(clazz, indexName, key);
+    }
+
+    @Override
+    public Optional<Config> findUniqueBy(@Nonnull String indexName, @Nonnull Object key) {
+        return globalDataStorage.snapshot().findUniqueBy(clazz, indexName, key);
+    }
+
+    @Nonnull
+    @Override
+    public List<Config> findBy(@Nonnull ConfigSnapshot snapshot, @Nonnull String indexName, @Nonnull Object key) {
+        return snapshot.findBy(clazz, indexName, key);
+    }
+
+    @Override
+    public Optional<Config> findUniqueBy(@Nonnull ConfigSnapshot snapshot, @Nonnull String indexName, @Nonnull Object key) {
+        return snapshot.findUniqueBy(clazz, indexName, key);
     }
 }
@@ -8,10 +8,29 @@ public class StorageFactory {
         this.globalDataStorage = globalDataStorage;
     }
 
+    /**
+     * 创建配置表查询, id为Integer或Long时返回{@link IntStorage}或{@link LongStorage}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public <ID extends Comparable<ID>, Config extends IConfig<ID>> Storage<ID, Config> create(Class<Config> clazz) {
+        var idType = ConfigTypeInfo.idType(clazz);
+        if (idType == Integer.class) {
+            return new IntStorageImpl(clazz, globalDataStorage);
+        }
+        if (idType == Long.class) {
+            return new LongStorageImpl(clazz, globalDataStorage);
+        }
         return new StorageImpl<>(clazz, globalDataStorage);
     }
 
+    public <Config extends IConfig<Integer>> IntStorage<Config> createInt(Class<Config> clazz) {
+        return new IntStorageImpl<>(clazz, globalDataStorage);
+    }
+
+    public <Config extends IConfig<Long>> LongStorage<Config> createLong(Class<Config> clazz) {
+        return new LongStorageImpl<>(clazz, globalDataStorage);
+    }
+
     public <Config> SingleStorage<Config> createSingle(Class<Config> clazz) {
         return new SingleStorageImpl<>(clazz, globalDataStorage);
     }
@@ -0,0 +1,45 @@
+package org.lhotse.config.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单次加载内的字符串去重池, 所有配置表共用, 加载结束后丢弃<br>
+ * 只在解析字符串字段时去重, 不复制原始行, 记录的字符串字段直接引用池中的对象<br>
+ * 表头和非字符串单元格不去重: 原始行解析后即释放, 为其去重需要复制每一行, 反而提高加载峰值, 节省字节数也只统计字符串字段
+ */
+final class StringPool {
+
+    /**
+     * String对象头, 字段和数组头的大小
+     */
+    static final int STRING_OVERHEAD = 40;
+
+    final Map<String, String> strings = new ConcurrentHashMap<>();
+    final LongAdder savedBytes = new LongAdder();
+
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        var old = strings.putIfAbsent(value, value);
+        if (old == null) {
+            return value;
+        }
+        // 按Latin1估算
+        savedBytes.add(STRING_OVERHEAD + value.length());
+        return old;
+    }
+
+    /**
+     * 去重节省的估算字节数
+     */
+    long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    int size() {
+        return strings.size();
+    }
+}
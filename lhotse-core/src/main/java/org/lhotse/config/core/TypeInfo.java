@@ -1,29 +1,80 @@
 package org.lhotse.config.core;
 
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.List;
 import java.util.Set;
 
 public interface TypeInfo {
 
     String path();
+
+    /**
+     * 是否流式读取
+     */
+    boolean streaming();
 }
 
 /**
  * 配置类字段信息
- * @param clazz
+ *
+ * @param clazz      配置类
+ * @param fieldInfos 字段, 与record字段顺序一致
+ * @param factory    构造器
+ * @param idType     id()的返回类型, 单配置表为null
+ * @param indexInfos 二级索引
+ * @param offHeap    是否保存在堆外
+ * @param lazy       是否延迟创建对象
+ * @param loader     编译期生成的加载器, 没有时为null
  */
-record ConfigTypeInfo(Class<?> clazz, Set<FieldInfo> fieldInfos) {
+record ConfigTypeInfo(Class<?> clazz, List<FieldInfo> fieldInfos, RecordFactory factory, Class<?> idType,
+                      List<IndexInfo> indexInfos, boolean offHeap, boolean lazy, RecordLoader<?> loader) {
+
+    /**
+     * 是否使用生成的加载器创建对象, 堆外和延迟创建的表需要保留参数或原始内容, 仍使用反射
+     */
+    boolean useLoader() {
+        return loader != null && !offHeap && !lazy;
+    }
+
+    /**
+     * 名为id的record字段序号, 其访问方法即id(), 没有时返回-1
+     */
+    int idIndex() {
+        for (int i = 0; i < fieldInfos.size(); i++) {
+            if ("id".equals(fieldInfos.get(i).name())) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
+    /**
+     * id()的返回类型, 非{@link IConfig}返回null
+     */
+    static Class<?> idType(Class<?> clazz) {
+        if (!IConfig.class.isAssignableFrom(clazz)) {
+            return null;
+        }
+        try {
+            return clazz.getMethod("id").getReturnType();
+        } catch (NoSuchMethodException ex) {
+            throw new LhotseException("获取id类型失败, " + clazz.getName(), ex);
+        }
+    }
 }
 
 /**
- * @param path 文件路径
+ * @param path      文件路径
+ * @param streaming 是否流式读取
  */
-record MultiTypeInfo(Class<?> clazz, String path)  implements TypeInfo {
+record MultiTypeInfo(Class<?> clazz, String path, boolean streaming) implements TypeInfo {
 }
 
 /**
- * @param path 文件路径
+ * @param path      文件路径
+ * @param streaming 是否流式读取
  */
-record SingleTypeInfo(Set<Class<?>> classes, String path) implements TypeInfo {
+record SingleTypeInfo(Set<Class<?>> classes, String path, boolean streaming) implements TypeInfo {
 }
 
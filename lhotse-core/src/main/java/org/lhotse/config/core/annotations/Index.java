@@ -0,0 +1,19 @@
+package org.lhotse.config.core.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 二级索引, 加载时按字段值分组, 通过{@code Storage.findBy}查询
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Index {
+
+    /**
+     * 索引名, 默认为字段名
+     */
+    String name() default "";
+}
@@ -0,0 +1,23 @@
+package org.lhotse.config.core.annotations;
+
+import org.lhotse.config.core.IConfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 引用其他配置表, 字段类型为{@code ConfigRef}, 单元格内容为目标id<br>
+ * 加载时解析为目标对象, 目标不存在时加载失败
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Ref {
+
+    /**
+     * 目标配置表
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends IConfig> value();
+}
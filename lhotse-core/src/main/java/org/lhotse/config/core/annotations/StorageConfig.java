@@ -15,4 +15,22 @@ public @interface StorageConfig {
      * 配置表文件路径
      */
     String path();
+
+    /**
+     * 是否使用流式读取, 适用于行数很多的Excel
+     */
+    boolean streaming() default false;
+
+    /**
+     * 是否将原始内容保存在堆外, 查询时才创建对象, 适用于行数很多的配置表<br>
+     * 同一id每次查询返回新对象, 不支持索引<br>
+     * 按参数建立id索引, 配置类需要名为id的record字段, id()为其访问方法且返回该字段原值
+     */
+    boolean offHeap() default false;
+
+    /**
+     * 是否延迟创建对象, 加载时只解析, 校验id并试创建一个对象, 首次查询时才创建其余对象和索引, 构造方法对个别行的校验在首次查询时抛出, 适用于很少使用的配置表<br>
+     * 加载时按参数校验id, 配置类需要名为id的record字段, id()为其访问方法且返回该字段原值
+     */
+    boolean lazy() default false;
 }
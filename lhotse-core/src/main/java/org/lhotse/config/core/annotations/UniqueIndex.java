@@ -0,0 +1,19 @@
+package org.lhotse.config.core.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 唯一索引, 字段值重复时加载失败, 通过{@code Storage.findUniqueBy}查询
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface UniqueIndex {
+
+    /**
+     * 索引名, 默认为字段名
+     */
+    String name() default "";
+}
@@ -0,0 +1,80 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.GlobalDataStorageTest.ItemConfig;
+import org.lhotse.config.core.GlobalDataStorageTest.QuestConfig;
+import org.lhotse.config.core.GlobalDataStorageTest.SystemConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCompilerTest {
+
+    static final Set<Class<?>> TYPES = Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class);
+
+    @Test
+    void loadCompiled(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        var compiled = dir.resolve("config.bin");
+        ConfigCompiler.compile(dir.toString(), TYPES, compiled);
+
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setCompiledPath(compiled.toString());
+        storage.typeInfoParse = new GlobalDataStorage.TypeInfoParse(dir.toString(), TYPES, false);
+        assertTrue(storage.loadCompiled());
+        assertEquals(new ItemConfig(2, "shield", 200L), storage.getConfig(ItemConfig.class, 2).orElseThrow());
+        assertEquals(new SystemConfig(8, "lhotse"), storage.getSingleConfig(SystemConfig.class).orElseThrow());
+    }
+
+    @Test
+    void fallbackWhenSourceChanged(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        var compiled = dir.resolve("config.bin");
+        ConfigCompiler.compile(dir.toString(), TYPES, compiled);
+        Files.writeString(dir.resolve("item.json"), """
+                [{"id": 1, "name": "axe", "price": 1}]
+                """);
+
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setCompiledPath(compiled.toString());
+        storage.typeInfoParse = new GlobalDataStorage.TypeInfoParse(dir.toString(), TYPES, false);
+        assertFalse(storage.loadCompiled());
+
+        storage.init(TYPES);
+        assertEquals("axe", storage.getConfig(ItemConfig.class, 1).orElseThrow().name());
+    }
+
+    @Test
+    void fallbackWhenSchemaChanged(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        var compiled = dir.resolve("config.bin");
+        ConfigCompiler.compile(dir.toString(), Set.of(ItemConfig.class), compiled);
+
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setCompiledPath(compiled.toString());
+        storage.typeInfoParse = new GlobalDataStorage.TypeInfoParse(dir.toString(), TYPES, false);
+        assertFalse(storage.loadCompiled());
+    }
+
+    @Test
+    void fallbackWhenReaderChanged(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        var compiled = dir.resolve("config.bin");
+        ConfigCompiler.compile(dir.toString(), TYPES, compiled);
+
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setCompiledPath(compiled.toString());
+        storage.typeInfoParse = new GlobalDataStorage.TypeInfoParse(dir.toString(), TYPES, false);
+        FileReaderTest.LineFileReader.revision++;
+        try {
+            assertFalse(storage.loadCompiled());
+        } finally {
+            FileReaderTest.LineFileReader.revision--;
+        }
+        assertTrue(storage.loadCompiled());
+    }
+}
@@ -0,0 +1,111 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.Ref;
+import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigRefTest {
+
+    @StorageConfig(path = "item.json")
+    record ItemConfig(Integer id, String name) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "quest.json")
+    record QuestConfig(Integer id,
+                       @Ref(ItemConfig.class) ConfigRef<ItemConfig> reward,
+                       @Ref(QuestConfig.class) ConfigRef<QuestConfig> next) implements IConfig<Integer> {
+    }
+
+    static void writeConfigs(Path dir) throws Exception {
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword"},
+                    {"id": 2, "name": "shield"}
+                ]
+                """);
+        Files.writeString(dir.resolve("quest.json"), """
+                [
+                    {"id": 10, "reward": "1", "next": "11"},
+                    {"id": 11, "reward": "2", "next": "12"},
+                    {"id": 12, "reward": "1"},
+                    {"id": 13, "reward": "1"}
+                ]
+                """);
+    }
+
+    @Test
+    void resolve(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class));
+        var snapshot = storage.snapshot();
+
+        var quest = snapshot.get(QuestConfig.class, 10).orElseThrow();
+        assertSame(snapshot.get(ItemConfig.class, 1).orElseThrow(), quest.reward().get());
+        assertEquals(1, quest.reward().id());
+        assertSame(snapshot.get(QuestConfig.class, 11).orElseThrow(), quest.next().get());
+        assertEquals("shield", quest.next().get().reward().get().name());
+        assertNull(quest.next().get().next().get().next());
+    }
+
+    @Test
+    void missingTarget(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        Files.writeString(dir.resolve("quest.json"), """
+                [{"id": 10, "reward": "3", "next": "99"}]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        var ex = assertThrows(LhotseException.class, () -> storage.init(Set.of(ItemConfig.class, QuestConfig.class)));
+        assertTrue(ex.getMessage().contains("reward -> ItemConfig#3"), ex.getMessage());
+        assertTrue(ex.getMessage().contains("next -> QuestConfig#99"), ex.getMessage());
+    }
+
+    @Test
+    void unregisteredTarget(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        assertThrows(LhotseException.class, () -> storage.init(Set.of(QuestConfig.class)));
+    }
+
+    @Test
+    void rewireOnReload(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class));
+        var old = storage.snapshot();
+
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword"},
+                    {"id": 2, "name": "axe"}
+                ]
+                """);
+        storage.refresh(Set.of(ItemConfig.class));
+        var current = storage.snapshot();
+
+        // 引用变化的行及其引用方重新创建
+        var quest = current.get(QuestConfig.class, 10).orElseThrow();
+        assertEquals("axe", quest.next().get().reward().get().name());
+        assertSame(current.get(QuestConfig.class, 11).orElseThrow(), quest.next().get());
+        assertNotSame(old.get(QuestConfig.class, 10).orElseThrow(), quest);
+        // 目标未变化的行复用
+        assertSame(old.get(QuestConfig.class, 13).orElseThrow(), current.get(QuestConfig.class, 13).orElseThrow());
+        assertSame(current.get(ItemConfig.class, 1).orElseThrow(), current.get(QuestConfig.class, 13).orElseThrow().reward().get());
+        // 旧快照不受影响
+        assertEquals("shield", old.get(QuestConfig.class, 11).orElseThrow().reward().get().name());
+
+        Files.writeString(dir.resolve("item.json"), """
+                [{"id": 1, "name": "sword"}]
+                """);
+        assertThrows(LhotseException.class, () -> storage.refresh(Set.of(ItemConfig.class)));
+        assertSame(current, storage.snapshot());
+    }
+}
@@ -0,0 +1,72 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigTableTest {
+
+    record IntConfig(Integer id) implements IConfig<Integer> {
+    }
+
+    record LongConfig(Long id) implements IConfig<Long> {
+    }
+
+    record StringConfig(String id) implements IConfig<String> {
+    }
+
+    @Test
+    void denseInt() {
+        List<IConfig> values = new ArrayList<>();
+        for (int i = 100; i < 200; i++) {
+            values.add(new IntConfig(i));
+        }
+        var table = ConfigTable.of(Integer.class, values);
+        assertInstanceOf(ConfigTable.DenseIntConfigTable.class, table);
+        assertEquals(new IntConfig(150), table.getInt(150));
+        assertEquals(new IntConfig(150), table.get(150));
+        assertEquals(new IntConfig(150), table.getLong(150L));
+        assertNull(table.getInt(99));
+        assertNull(table.getInt(200));
+        assertNull(table.get(150L));
+        assertEquals(values, table.values);
+    }
+
+    @Test
+    void sparseInt() {
+        List<IConfig> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(new IntConfig(i * 10007 - 500000));
+        }
+        var table = ConfigTable.of(Integer.class, values);
+        assertInstanceOf(ConfigTable.IntHashConfigTable.class, table);
+        for (IConfig value : values) {
+            assertSame(value, table.getInt((Integer) value.id()));
+        }
+        assertNull(table.getInt(1));
+    }
+
+    @Test
+    void longAndGeneric() {
+        var longTable = ConfigTable.of(Long.class, List.of(new LongConfig(1L << 40), new LongConfig(-3L)));
+        assertEquals(new LongConfig(1L << 40), longTable.getLong(1L << 40));
+        assertEquals(new LongConfig(-3L), longTable.getInt(-3));
+        assertNull(longTable.getLong(4L));
+
+        var stringTable = ConfigTable.of(String.class, List.of(new StringConfig("a"), new StringConfig("b")));
+        assertEquals(new StringConfig("b"), stringTable.get("b"));
+        assertNull(stringTable.get("c"));
+    }
+
+    @Test
+    void duplicateId() {
+        assertThrows(LhotseException.class, () -> ConfigTable.of(Integer.class, List.of(new IntConfig(1), new IntConfig(1))));
+        assertThrows(LhotseException.class, () -> ConfigTable.of(Integer.class, List.of(new IntConfig(1), new IntConfig(1 << 20), new IntConfig(1))));
+        assertThrows(LhotseException.class, () -> ConfigTable.of(Long.class, List.of(new LongConfig(1L), new LongConfig(1L))));
+        assertThrows(LhotseException.class, () -> ConfigTable.of(Integer.class, List.of(new IntConfig(null))));
+    }
+}
@@ -0,0 +1,93 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.SingleConfig;
+import org.lhotse.config.core.annotations.StorageConfig;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvFileReaderTest {
+
+    @StorageConfig(path = "item.csv")
+    record ItemConfig(Integer id, String name, List<Integer> tags) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "system.tsv")
+    @SingleConfig(key = "system")
+    record SystemConfig(int threadNum, String systemName) {
+    }
+
+    @Test
+    void readFile(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("item.csv");
+        Files.writeString(path, "﻿true,,\r\n"
+                + "编号,名称,标签\r\n"
+                + "id, name ,tags,\r\n"
+                + "1,剑,\"[1,2]\"\r\n"
+                + "\r\n"
+                + "2,\"say \"\"hi\"\"\nnext\",,ignored\r\n"
+                + "3");
+        var rows = new CsvFileReader().readFile(path.toString());
+        assertEquals(List.of(
+                Map.of("id", "1", "name", "剑", "tags", "[1,2]"),
+                Map.of("id", "2", "name", "say \"hi\"\nnext"),
+                Map.of("id", "3")), rows);
+    }
+
+    @Test
+    void readHeapOrMapped(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("item.csv");
+        Files.writeString(path, "true\r\n编号\r\nid\r\n1\r\n");
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var heap = CsvFileReader.read(channel, CsvFileReader.MAP_THRESHOLD);
+            assertFalse(heap.isDirect());
+            var mapped = CsvFileReader.read(channel, 0);
+            assertInstanceOf(MappedByteBuffer.class, mapped);
+            assertEquals(mapped, heap);
+        }
+    }
+
+    @Test
+    void disabled(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("item.tsv");
+        Files.writeString(path, "false\n\nid\tname\n1\ta\n");
+        assertTrue(new CsvFileReader().readFile(path.toString()).isEmpty());
+        Files.writeString(path, "1\n\nid\tname\n1\ta b\n");
+        assertEquals(List.of(Map.of("id", "1", "name", "a b")), new CsvFileReader().readFile(path.toString()));
+        Files.writeString(path, "");
+        assertTrue(new CsvFileReader().readFile(path.toString()).isEmpty());
+    }
+
+    @Test
+    void load(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("item.csv"), """
+                true
+                描述
+                id,name,tags
+                1,sword,"1,2"
+                2,shield,
+                """);
+        Files.writeString(dir.resolve("system.tsv"), """
+                true
+                描述
+                id\tkey\tvalue
+                system\tthreadNum\t8
+                \tsystemName\tlhotse
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, SystemConfig.class));
+        assertEquals(new ItemConfig(1, "sword", List.of(1, 2)), storage.getConfig(ItemConfig.class, 1).orElseThrow());
+        assertNull(storage.getConfig(ItemConfig.class, 2).orElseThrow().tags());
+        assertEquals(new SystemConfig(8, "lhotse"), storage.getSingleConfig(SystemConfig.class).orElseThrow());
+    }
+}
@@ -2,6 +2,10 @@ package org.lhotse.config.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -42,4 +46,58 @@ class ExcelFileReaderTest {
         assertEquals("1", map.get("b").get("id"));
         assertEquals("A", map.get("b").get("name"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void readFileStreaming() {
+        var path = this.getClass().getClassLoader().getResource("excel/multi-config.xlsx").getFile();
+        if (path.charAt(2) == ':') {
+            path = path.substring(1);
+        }
+        var excelFileReader = new ExcelFileReader();
+        assertEquals(excelFileReader.readFile(path + ":item"), excelFileReader.readFile(path + ":item", true));
+        // 未指定sheet时取第一个启用的sheet
+        assertEquals(excelFileReader.readFile(path), excelFileReader.readFile(path, true));
+        assertTrue(excelFileReader.readFile(path + ":other", true).isEmpty());
+    }
+
+    @Test
+    void readRows() {
+        var path = this.getClass().getClassLoader().getResource("excel/multi-config.xlsx").getFile();
+        if (path.charAt(2) == ':') {
+            path = path.substring(1);
+        }
+        var excelFileReader = new ExcelFileReader();
+        List<Map<String, String>> rows = new ArrayList<>();
+        excelFileReader.readRows(path + ":item", rows::add);
+        assertEquals(5, rows.size());
+        assertEquals("1", rows.get(0).get("id"));
+        assertEquals("A5", rows.get(4).get("name"));
+    }
+
+    @Test
+    void readFileForSingleStreaming() {
+        var path = this.getClass().getClassLoader().getResource("excel/single-config.xlsx").getFile();
+        if (path.charAt(2) == ':') {
+            path = path.substring(1);
+        }
+        var excelFileReader = new ExcelFileReader();
+        assertEquals(excelFileReader.readFileForSingle(path), excelFileReader.readFileForSingle(path, true));
+    }
+
+    @Test
+    void readSheets() {
+        var path = this.getClass().getClassLoader().getResource("excel/multi-config.xlsx").getFile();
+        if (path.charAt(2) == ':') {
+            path = path.substring(1);
+        }
+        var excelFileReader = new ExcelFileReader();
+        var paths = List.of(path + ":item", path + ":other", path);
+        for (boolean streaming : new boolean[]{false, true}) {
+            var sheets = excelFileReader.readSheets(path, paths, streaming);
+            assertEquals(3, sheets.size());
+            for (String sheet : paths) {
+                assertEquals(excelFileReader.readFile(sheet, streaming), sheets.get(sheet), sheet);
+            }
+        }
+    }
+}
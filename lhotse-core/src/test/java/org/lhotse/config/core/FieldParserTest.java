@@ -0,0 +1,115 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldParserTest {
+
+    enum Quality {
+        WHITE, BLUE
+    }
+
+    record AllTypes(byte b, short s, int i, long l, double d, boolean flag, Integer boxed, Quality quality,
+                    List<Integer> list, Set<String> set, Map<String, Long> map, int[] ints, String[] names) {
+    }
+
+    static Object parse(String field, String text) throws Exception {
+        var component = AllTypes.class.getDeclaredField(field);
+        return new NormalFieldInfo(field, component.getGenericType()).getRealValue(text);
+    }
+
+    @Test
+    void primitive() throws Exception {
+        assertEquals((byte) 3, parse("b", "3"));
+        assertEquals((short) 4, parse("s", "4"));
+        assertEquals(5, parse("i", "5"));
+        assertEquals(6L, parse("l", "6"));
+        assertEquals(1.5, parse("d", "1.5"));
+        assertEquals(true, parse("flag", "TRUE"));
+        assertEquals(false, parse("flag", "1"));
+        assertEquals(false, parse("flag", "false"));
+    }
+
+    @Test
+    void sameAsBaseline() {
+        // 与Integer.parseInt一致, 单元格不去掉空白
+        assertThrows(NumberFormatException.class, () -> parse("i", " 1"));
+        assertThrows(NumberFormatException.class, () -> parse("l", "1 "));
+        // 直接解析为float, 不经过double两次舍入
+        var text = "1.00000017881393432617187499";
+        assertNotEquals((float) Double.parseDouble(text), Float.parseFloat(text));
+        assertEquals(Float.parseFloat(text), FieldParsers.FLOAT.parse(text));
+    }
+
+    @Test
+    void escapedElements() throws Exception {
+        assertEquals(Set.of("a\"b", "c,d\\"), parse("set", "[\"a\\\"b\", \"c,d\\\\\"]"));
+        assertEquals(Map.of("k\"", 1L), parse("map", "{\"k\\\"\": 1}"));
+        assertEquals(List.of("\u00e9\n"), List.of((String[]) parse("names", "[\"\\u00e9\\n\"]")));
+        assertThrows(LhotseException.class, () -> parse("names", "[\"\\x\"]"));
+    }
+
+    @Test
+    void outOfRange() {
+        assertThrows(NumberFormatException.class, () -> parse("b", "300"));
+        assertThrows(NumberFormatException.class, () -> parse("b", "-129"));
+        assertThrows(NumberFormatException.class, () -> parse("s", "70000"));
+        assertDoesNotThrow(() -> parse("b", "-128"));
+        assertDoesNotThrow(() -> parse("s", "32767"));
+    }
+
+    @Test
+    void defaultValue() throws Exception {
+        assertEquals((byte) 0, parse("b", null));
+        assertEquals((short) 0, parse("s", null));
+        assertEquals(0, parse("i", null));
+        assertEquals(false, parse("flag", null));
+        assertNull(parse("boxed", null));
+        assertNull(parse("list", null));
+    }
+
+    @Test
+    void enumValue() throws Exception {
+        assertEquals(Quality.BLUE, parse("quality", "BLUE"));
+        assertThrows(LhotseException.class, () -> parse("quality", "RED"));
+    }
+
+    @Test
+    void collection() throws Exception {
+        assertEquals(List.of(1, 2), parse("list", "[1, 2]"));
+        assertEquals(List.of(1, 2), parse("list", "1,2"));
+        assertEquals(List.of(), parse("list", "[]"));
+        assertEquals(Set.of("a", "b,c"), parse("set", "[\"a\", \"b,c\"]"));
+        assertEquals(Map.of("a", 1L, "b", 2L), parse("map", "{\"a\":1,\"b\":2}"));
+        assertEquals(Map.of("a", 1L), parse("map", "a:1"));
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) parse("ints", "[1,2,3]"));
+        assertArrayEquals(new String[]{"x", "y"}, (String[]) parse("names", "x, y"));
+    }
+
+    @Test
+    void range() {
+        assertEquals(23, FieldParsers.INT.parse("a=23;", 2, 4));
+        assertEquals(List.of(1L, 2L), new FieldParsers.ListParser(FieldParsers.LONG).parse("x[1,2]x", 1, 6));
+    }
+
+    @Test
+    void unsupported() {
+        assertThrows(LhotseException.class, () -> FieldParsers.of(Object.class));
+    }
+
+    @Test
+    void construct() {
+        var typeInfo = new GlobalDataStorage.TypeInfoParse("", Set.of(), false).parseConfig(AllTypes.class);
+        var data = new DataContainer.ConfigData(typeInfo, Map.of("i", "7"));
+        AllTypes value = data.toObject();
+        assertEquals(7, value.i());
+        assertEquals((byte) 0, value.b());
+        assertEquals((short) 0, value.s());
+    }
+}
@@ -0,0 +1,97 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.StorageConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileReaderTest {
+
+    /**
+     * 每行一条数据, 单元格为key=value, 以空格分隔
+     */
+    public static class LineFileReader implements FileReader {
+
+        static volatile int revision;
+
+        @Override
+        public int revision() {
+            return revision;
+        }
+
+        @Override
+        public List<Map<String, String>> readFile(String path) {
+            try {
+                List<Map<String, String>> ret = new ArrayList<>();
+                for (String line : Files.readAllLines(Path.of(path))) {
+                    Map<String, String> row = new HashMap<>();
+                    for (String cell : line.trim().split("\\s+")) {
+                        var i = cell.indexOf('=');
+                        if (i > 0) {
+                            row.put(cell.substring(0, i), cell.substring(i + 1));
+                        }
+                    }
+                    if (!row.isEmpty()) {
+                        ret.add(row);
+                    }
+                }
+                return ret;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Map<String, Map<String, String>> readFileForSingle(String path) {
+            return FileReader.toSingle(readFile(path));
+        }
+
+        @Override
+        public boolean match(String filepath) {
+            return filepath.endsWith(".lines");
+        }
+    }
+
+    @StorageConfig(path = "item.lines")
+    record ItemConfig(Integer id, String name) implements IConfig<Integer> {
+    }
+
+    @Test
+    void serviceLoader(@TempDir Path dir) throws Exception {
+        assertInstanceOf(LineFileReader.class, ConfigReader.get("a/item.lines"));
+        assertSame(ConfigReader.EXCEL, ConfigReader.get("a/item.xlsx:Sheet1"));
+        assertEquals("a/item.xlsx", ConfigReader.sourceFile("a/item.xlsx:Sheet1"));
+        assertThrows(UnsupportedOperationException.class, () -> ConfigReader.get("a/item.yaml"));
+
+        Files.writeString(dir.resolve("item.lines"), "id=1 name=sword\n\nid=2 name=shield\n");
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class));
+        assertEquals(new ItemConfig(2, "shield"), storage.getConfig(ItemConfig.class, 2).orElseThrow());
+    }
+
+    @Test
+    void readCells(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("item.csv");
+        Files.writeString(path, "true\n\nid,name\n1,\"a \"\"b\"\" \" \n\n2,\n");
+        List<String> cells = new ArrayList<>();
+        ConfigReader.get(path.toString()).readCells(path.toString(), new FileReader.CellConsumer() {
+            @Override
+            public void cell(String title, CharSequence text, int start, int end) {
+                cells.add(title + "=" + text.subSequence(start, end));
+            }
+
+            @Override
+            public void endRow() {
+                cells.add("|");
+            }
+        });
+        assertEquals(List.of("id=1", "name=a \"b\"", "|", "id=2", "|"), cells);
+    }
+}
@@ -0,0 +1,76 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileWatcherTest {
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "超时");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void watchSubdirectories(@TempDir Path dir) throws Exception {
+        var changes = new CopyOnWriteArrayList<Set<Path>>();
+        var watcher = new FileWatcher(dir, 200, changes::add);
+        watcher.register();
+        var thread = new Thread(watcher);
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            var sub = Files.createDirectories(dir.resolve("a/b"));
+            Thread.sleep(400);
+            // 只有目录变化不回调
+            assertTrue(changes.isEmpty());
+
+            Files.writeString(sub.resolve("x.json"), "[]");
+            Files.writeString(dir.resolve("y.json"), "[]");
+            await(() -> !changes.isEmpty());
+            Thread.sleep(400);
+            assertEquals(1, changes.size());
+            assertEquals(Set.of(sub.resolve("x.json"), dir.resolve("y.json")), changes.get(0));
+        } finally {
+            thread.interrupt();
+        }
+    }
+
+    @Test
+    void burstCausesOneRefresh(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 200L);
+        storage.init(Set.of(GlobalDataStorageTest.ItemConfig.class, GlobalDataStorageTest.QuestConfig.class));
+        try {
+            var generation = storage.snapshot().generation();
+            // 先写临时文件再重命名
+            var temp = dir.resolve("item.json.tmp");
+            Files.writeString(temp, """
+                    [{"id": 1, "name": "axe", "price": 1}]
+                    """);
+            Files.move(temp, dir.resolve("item.json"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(dir.resolve("quest.json"), """
+                    [{"id": 10, "chapter": 5}]
+                    """);
+            await(() -> storage.snapshot().generation() > generation);
+            Thread.sleep(400);
+            assertEquals(generation + 1, storage.snapshot().generation());
+            assertEquals("axe", storage.getConfig(GlobalDataStorageTest.ItemConfig.class, 1).orElseThrow().name());
+            assertEquals(5, storage.getConfig(GlobalDataStorageTest.QuestConfig.class, 10).orElseThrow().chapter());
+        } finally {
+            storage.close();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.Index;
+import org.lhotse.config.core.annotations.SingleConfig;
+import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.annotations.UniqueIndex;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalDataStorageTest {
+
+    @StorageConfig(path = "item.json")
+    record ItemConfig(Integer id, String name, long price) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "quest.json")
+    record QuestConfig(Integer id, int chapter) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "shop.json")
+    record ShopConfig(Integer id, @Index int category, @UniqueIndex(name = "sku") String code) implements IConfig<Integer> {
+    }
+
+    @StorageConfig(path = "system.json")
+    @SingleConfig(key = "system")
+    record SystemConfig(int threadNum, String systemName) {
+    }
+
+    static void writeConfigs(Path dir) throws Exception {
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100},
+                    {"id": 2, "name": "shield", "price": 200}
+                ]
+                """);
+        Files.writeString(dir.resolve("quest.json"), """
+                [
+                    {"id": 10, "chapter": 1},
+                    {"id": 11, "chapter": 2}
+                ]
+                """);
+        Files.writeString(dir.resolve("system.json"), """
+                {
+                    "system": {"threadNum": 8, "systemName": "lhotse"}
+                }
+                """);
+    }
+
+    @Test
+    void init(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L, false, 4);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class));
+        var factory = new StorageFactory(storage);
+
+        Storage<Integer, ItemConfig> items = factory.create(ItemConfig.class);
+        assertEquals(new ItemConfig(1, "sword", 100L), items.get(1).orElseThrow());
+        assertEquals(2, items.listConfig().size());
+        assertTrue(items.get(3).isEmpty());
+        assertEquals(2, factory.create(QuestConfig.class).get(11).orElseThrow().chapter());
+        assertEquals(new SystemConfig(8, "lhotse"), factory.createSingle(SystemConfig.class).value());
+
+        IntStorage<ItemConfig> intItems = factory.createInt(ItemConfig.class);
+        assertEquals("shield", intItems.get(2).orElseThrow().name());
+        assertEquals("shield", intItems.get(storage.snapshot(), 2).orElseThrow().name());
+        assertInstanceOf(IntStorage.class, items);
+    }
+
+    @Test
+    void parallelismIsDeterministic(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        Set<Class<?>> types = Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class);
+        var serial = new GlobalDataStorage(dir.toString(), 0L, false, 1);
+        serial.init(types);
+        var parallel = new GlobalDataStorage(dir.toString(), 0L, false, 8);
+        parallel.init(types);
+        var comparator = Comparator.comparing(ItemConfig::id);
+        assertEquals(serial.listConfig(ItemConfig.class).stream().sorted(comparator).toList(),
+                parallel.listConfig(ItemConfig.class).stream().sorted(comparator).toList());
+        assertEquals(serial.getSingleConfig(SystemConfig.class), parallel.getSingleConfig(SystemConfig.class));
+    }
+
+    @Test
+    void errorsAreAggregated(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        Files.writeString(dir.resolve("item.json"), "{");
+        Files.writeString(dir.resolve("quest.json"), "[1]");
+        var storage = new GlobalDataStorage(dir.toString(), 0L, false, 4);
+        var ex = assertThrows(LhotseException.class, () -> storage.init(Set.of(ItemConfig.class, QuestConfig.class)));
+        assertTrue(ex.getMessage().contains("item.json"), ex.getMessage());
+        assertTrue(ex.getMessage().contains("quest.json"), ex.getMessage());
+        assertEquals(2, ex.getSuppressed().length);
+    }
+
+    @Test
+    void snapshotIsStable(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class));
+        Storage<Integer, ItemConfig> items = new StorageFactory(storage).create(ItemConfig.class);
+        var snapshot = storage.snapshot();
+        assertSame(snapshot, storage.snapshot());
+
+        Files.writeString(dir.resolve("item.json"), """
+                [{"id": 1, "name": "axe", "price": 1}]
+                """);
+        storage.refresh(Set.of(ItemConfig.class));
+
+        assertEquals("sword", items.get(snapshot, 1).orElseThrow().name());
+        assertEquals(2, items.listConfig(snapshot).size());
+        assertEquals("axe", items.get(1).orElseThrow().name());
+        assertEquals(snapshot.generation() + 1, storage.snapshot().generation());
+        // 未刷新的表保留
+        assertEquals(new SystemConfig(8, "lhotse"), storage.snapshot().getSingle(SystemConfig.class).orElseThrow());
+    }
+
+    @Test
+    void unchangedRowsAreReused(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class));
+        var factory = new StorageFactory(storage);
+        Storage<Integer, ItemConfig> items = factory.create(ItemConfig.class);
+        var sword = items.get(1).orElseThrow();
+        var shield = items.get(2).orElseThrow();
+        var quests = factory.create(QuestConfig.class).listConfig();
+
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100, "comment": "ignored"},
+                    {"id": 2, "name": "shield", "price": 250},
+                    {"id": 3, "name": "bow", "price": 300}
+                ]
+                """);
+        storage.refresh(Set.of(ItemConfig.class));
+
+        assertSame(sword, items.get(1).orElseThrow());
+        assertNotSame(shield, items.get(2).orElseThrow());
+        assertEquals(250L, items.get(2).orElseThrow().price());
+        assertEquals(3, items.listConfig().size());
+        // 未刷新的表整体复用
+        assertSame(quests, factory.create(QuestConfig.class).listConfig());
+    }
+
+    @Test
+    void indexes(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("shop.json"), """
+                [
+                    {"id": 1, "category": 1, "code": "a"},
+                    {"id": 2, "category": 2, "code": "b"},
+                    {"id": 3, "category": 1, "code": "c"}
+                ]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ShopConfig.class));
+        Storage<Integer, ShopConfig> shops = new StorageFactory(storage).create(ShopConfig.class);
+        var snapshot = storage.snapshot();
+
+        assertEquals(List.of(1, 3), shops.findBy("category", 1).stream().map(ShopConfig::id).toList());
+        assertTrue(shops.findBy("category", 3).isEmpty());
+        assertEquals(2, shops.findUniqueBy("sku", "b").orElseThrow().id());
+        assertTrue(shops.findUniqueBy("sku", "d").isEmpty());
+        assertThrows(LhotseException.class, () -> shops.findBy("code", "a"));
+        assertThrows(LhotseException.class, () -> shops.findUniqueBy("category", 1));
+
+        Files.writeString(dir.resolve("shop.json"), """
+                [{"id": 1, "category": 3, "code": "a"}]
+                """);
+        storage.refresh(Set.of(ShopConfig.class));
+        assertEquals(2, shops.findBy(snapshot, "category", 1).size());
+        assertTrue(shops.findBy("category", 1).isEmpty());
+        assertEquals(1, shops.findBy("category", 3).size());
+
+        Files.writeString(dir.resolve("shop.json"), """
+                [{"id": 1, "category": 1, "code": "a"}, {"id": 2, "category": 1, "code": "a"}]
+                """);
+        assertThrows(LhotseException.class, () -> storage.refresh(Set.of(ShopConfig.class)));
+        assertEquals(1, shops.findBy("category", 3).size());
+    }
+
+    @Test
+    void listConfigIsCachedAndOrdered(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("quest.json"), """
+                [
+                    {"id": 30, "chapter": 1},
+                    {"id": 10, "chapter": 2},
+                    {"id": 20, "chapter": 3}
+                ]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(QuestConfig.class));
+        Storage<Integer, QuestConfig> quests = new StorageFactory(storage).create(QuestConfig.class);
+
+        assertSame(quests.listConfig(), quests.listConfig());
+        assertEquals(List.of(30, 10, 20), quests.listConfig().stream().map(QuestConfig::id).toList());
+        assertEquals(List.of(10, 20, 30), quests.listSortedById().stream().map(QuestConfig::id).toList());
+        assertSame(quests.listSortedById(), quests.listSortedById());
+        assertThrows(UnsupportedOperationException.class, () -> quests.listConfig().add(new QuestConfig(1, 1)));
+
+        List<Integer> chapters = new ArrayList<>();
+        quests.forEach(e -> chapters.add(e.chapter()));
+        assertEquals(List.of(1, 2, 3), chapters);
+        assertEquals(3, StreamSupport.stream(quests.spliterator(), false).count());
+    }
+
+    @Test
+    void unchangedFilesAreSkipped(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class));
+        var generation = storage.snapshot().generation();
+        var items = storage.listConfig(ItemConfig.class);
+        var item = dir.resolve("item.json").toAbsolutePath().normalize();
+
+        // 只修改时间
+        Files.setLastModifiedTime(item, FileTime.fromMillis(Files.getLastModifiedTime(item).toMillis() + 5000));
+        storage.refreshForPath(Set.of(item.toString()));
+        assertEquals(generation, storage.snapshot().generation());
+
+        // 显式刷新时内容未变的表整体复用
+        storage.refresh(Set.of(ItemConfig.class));
+        assertEquals(generation + 1, storage.snapshot().generation());
+        assertSame(items, storage.listConfig(ItemConfig.class));
+
+        Files.writeString(item, """
+                [{"id": 1, "name": "axe", "price": 1}]
+                """);
+        storage.refreshForPath(Set.of(item.toString()));
+        assertEquals(generation + 2, storage.snapshot().generation());
+        assertEquals("axe", storage.getConfig(ItemConfig.class, 1).orElseThrow().name());
+    }
+
+    @Test
+    void metrics(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setMetrics(new LhotseMetrics() {
+            @Override
+            public void fileRead(String path, long nanos, int rows, long bytes) {
+                events.add("file " + Path.of(path).getFileName() + " " + rows + " " + (bytes > 0));
+            }
+
+            @Override
+            public void stage(String stage, long nanos, long allocatedBytes) {
+                events.add("stage " + stage);
+            }
+
+            @Override
+            public void tableLoaded(Class<?> clazz, int rows) {
+                events.add("table " + clazz.getSimpleName() + " " + rows);
+            }
+
+            @Override
+            public void reload(long generation, long nanos, int tables) {
+                events.add("reload " + generation + " " + tables);
+            }
+
+            @Override
+            public void reloadFailed(Throwable cause) {
+                events.add("failed");
+            }
+
+            @Override
+            public void lookup(Class<?> clazz, boolean hit) {
+                events.add("lookup " + clazz.getSimpleName() + " " + hit);
+            }
+        });
+        storage.init(Set.of(ItemConfig.class, SystemConfig.class));
+        assertTrue(events.contains("file item.json 2 true"), events.toString());
+        assertTrue(events.contains("file system.json 1 true"), events.toString());
+        assertTrue(events.containsAll(List.of("stage read", "stage parseConfig", "stage parseField", "stage toObject")), events.toString());
+        assertTrue(events.containsAll(List.of("table ItemConfig 2", "table SystemConfig 1", "reload 1 2")), events.toString());
+
+        events.clear();
+        IntStorage<ItemConfig> items = new StorageFactory(storage).createInt(ItemConfig.class);
+        items.get(1);
+        items.get(3);
+        items.get(Integer.valueOf(2));
+        assertEquals(List.of("lookup ItemConfig true", "lookup ItemConfig false", "lookup ItemConfig true"), events);
+
+        events.clear();
+        Files.writeString(dir.resolve("item.json"), "{");
+        assertThrows(LhotseException.class, () -> storage.refresh(Set.of(ItemConfig.class)));
+        assertEquals("failed", events.get(events.size() - 1));
+    }
+
+    @Test
+    void lookupWithoutOptional(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class));
+        var factory = new StorageFactory(storage);
+        Storage<Integer, ItemConfig> items = factory.create(ItemConfig.class);
+        IntStorage<ItemConfig> intItems = factory.createInt(ItemConfig.class);
+        var fallback = new ItemConfig(0, "none", 0);
+
+        assertEquals("sword", items.getOrNull(Integer.valueOf(1)).name());
+        assertNull(items.getOrNull(Integer.valueOf(3)));
+        assertSame(fallback, items.getOrDefault(Integer.valueOf(3), fallback));
+        assertTrue(items.contains(Integer.valueOf(2)));
+        assertEquals("shield", intItems.getOrNull(2).name());
+        assertSame(fallback, intItems.getOrDefault(3, fallback));
+        assertFalse(intItems.contains(3));
+        assertEquals(new SystemConfig(8, "lhotse"), factory.createSingle(SystemConfig.class).getOrNull());
+
+        // 版本变化后重新获取配置表
+        Files.writeString(dir.resolve("item.json"), """
+                [{"id": 3, "name": "axe", "price": 1}]
+                """);
+        storage.refresh(Set.of(ItemConfig.class));
+        assertNull(intItems.getOrNull(1));
+        assertEquals("axe", intItems.getOrNull(3).name());
+        assertTrue(items.contains(Integer.valueOf(3)));
+    }
+
+    @Test
+    void pipelined(@TempDir Path dir) throws Exception {
+        writeConfigs(dir);
+        Set<Class<?>> types = Set.of(ItemConfig.class, QuestConfig.class, SystemConfig.class);
+        var staged = new GlobalDataStorage(dir.toString(), 0L);
+        staged.init(types);
+        List<String> stages = Collections.synchronizedList(new ArrayList<>());
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setPipelined(true);
+        storage.setMetrics(new LhotseMetrics() {
+            @Override
+            public void stage(String stage, long nanos, long allocatedBytes) {
+                stages.add(stage);
+            }
+        });
+        storage.init(types);
+        assertTrue(stages.contains(LhotseMetrics.STAGE_PIPELINE), stages.toString());
+        assertEquals(staged.listConfig(ItemConfig.class), storage.listConfig(ItemConfig.class));
+        assertEquals(staged.listConfig(QuestConfig.class), storage.listConfig(QuestConfig.class));
+        assertEquals(staged.getSingleConfig(SystemConfig.class), storage.getSingleConfig(SystemConfig.class));
+
+        var factory = new StorageFactory(storage);
+        Storage<Integer, ItemConfig> items = factory.create(ItemConfig.class);
+        var sword = items.get(1).orElseThrow();
+        var quests = factory.create(QuestConfig.class).listConfig();
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100},
+                    {"id": 3, "name": "bow", "price": 300}
+                ]
+                """);
+        storage.refresh(Set.of(ItemConfig.class));
+        assertSame(sword, items.get(1).orElseThrow());
+        assertEquals("bow", items.get(3).orElseThrow().name());
+        assertTrue(items.get(2).isEmpty());
+        assertSame(quests, factory.create(QuestConfig.class).listConfig());
+
+        // 内容未变时整表复用
+        var table = storage.dataContainer.get().multiConfigData.get(ItemConfig.class);
+        storage.refresh(Set.of(ItemConfig.class));
+        assertSame(table, storage.dataContainer.get().multiConfigData.get(ItemConfig.class));
+    }
+
+    @Test
+    void rowHash() {
+        var info = new GlobalDataStorage.TypeInfoParse("", Set.of(), false).parseConfig(ItemConfig.class);
+        var row = new HashMap<>(Map.of("id", "1", "name", "剑"));
+        var hash = DataContainer.ConfigData.rowHash(info, row);
+        // 与逐字段拼接的结果一致
+        var expected = new FileHash();
+        expected.update("id\u0000V1\u0000name\u0000V剑\u0000price\u0000N");
+        assertEquals(expected.value(), hash);
+
+        // 区分null与空字符串
+        row.put("price", "");
+        assertNotEquals(hash, DataContainer.ConfigData.rowHash(info, row));
+    }
+
+    @Test
+    void stringHashMatchesUtf8() {
+        // 单字节, 双字节, 三字节, 代理对, 不成对的代理字符, 以及超过缓冲区长度的文本
+        var texts = List.of("", "abc", "é£", "剑€", "😀x", "a\uD83D", "\uDE00b", "剑😀".repeat(600));
+        for (String text : texts) {
+            var bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            var expected = new FileHash();
+            expected.update(bytes, 0, bytes.length);
+            var actual = new FileHash();
+            actual.update(text);
+            assertEquals(expected.value(), actual.value(), text);
+        }
+    }
+
+    @Test
+    void defaultStorageMethods() {
+        var shops = List.of(new ShopConfig(2, 1, "b"), new ShopConfig(1, 1, "a"), new ShopConfig(3, 2, "c"));
+        // 用户实现只需提供listConfig和get
+        Storage<Integer, ShopConfig> storage = new Storage<>() {
+            @Override
+            public List<ShopConfig> listConfig() {
+                return shops;
+            }
+
+            @Override
+            public Optional<ShopConfig> get(Integer id) {
+                return shops.stream().filter(e -> e.id().equals(id)).findFirst();
+            }
+        };
+        assertEquals(List.of(shops.get(1), shops.get(0), shops.get(2)), storage.listSortedById());
+        assertSame(shops.get(0), storage.getOrNull(2));
+        assertNull(storage.getOrNull(4));
+        assertSame(shops.get(2), storage.getOrDefault(4, shops.get(2)));
+        assertTrue(storage.contains(1));
+        assertEquals(List.of(shops.get(0), shops.get(1)), storage.findBy("category", 1));
+        assertEquals(Optional.of(shops.get(2)), storage.findUniqueBy("sku", "c"));
+        assertThrows(LhotseException.class, () -> storage.findBy("code", "c"));
+
+        SingleStorage<SystemConfig> single = () -> Optional.of(new SystemConfig(1, "a"));
+        assertEquals(1, single.getOrNull().threadNum());
+    }
+}
@@ -1,10 +1,14 @@
 package org.lhotse.config.core;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,7 +52,7 @@ class JsonFileReaderTest {
     }
 
     @Test
-    void readSingle() throws JsonProcessingException {
+    void readSingle() throws Exception {
         var reader = new JsonFileReader();
         String json = """
                 {
@@ -64,10 +68,15 @@ class JsonFileReaderTest {
                     }
                 }
                 """;
-        var temp = JsonFileReader.JsonUtils.MAPPER.readValue(json, new TypeReference<Map<String, Map<String, Object>>>() {
-        });
         Map<String, Map<String, String>> map = new HashMap<>();
-        temp.forEach((k, v) -> map.put(k, reader.read(v)));
+        try (var parser = JsonFileReader.JsonUtils.MAPPER.getFactory().createParser(json)) {
+            reader.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var key = parser.currentName();
+                reader.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+                map.put(key, reader.readRow(parser));
+            }
+        }
 
         assertTrue(map.containsKey("key"));
         assertTrue(map.get("key").containsKey("a"));
@@ -78,4 +87,23 @@ class JsonFileReaderTest {
         assertEquals(map.get("key").get("e"), "[1,2]");
         assertEquals(map.get("key").get("f"), "{\"a\":1}");
     }
-}
\ No newline at end of file
+
+    @Test
+    void readRows(@TempDir Path dir) throws Exception {
+        var file = dir.resolve("rows.json");
+        Files.writeString(file, """
+                [
+                    {"a": 1, "b": null, "e": [1, {"x": "y"}]},
+                    {"a": 2}
+                ]
+                """);
+        var reader = new JsonFileReader();
+        List<Map<String, String>> rows = new ArrayList<>();
+        reader.readRows(file.toString(), rows::add);
+        assertEquals(2, rows.size());
+        assertEquals("1", rows.get(0).get("a"));
+        assertFalse(rows.get(0).containsKey("b"));
+        assertEquals("[1,{\"x\":\"y\"}]", rows.get(0).get("e"));
+        assertEquals("2", rows.get(1).get("a"));
+    }
+}
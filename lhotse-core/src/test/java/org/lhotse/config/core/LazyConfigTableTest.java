@@ -0,0 +1,137 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.Index;
+import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyConfigTableTest {
+
+    static final AtomicInteger CREATED = new AtomicInteger();
+
+    @StorageConfig(path = "event.json", lazy = true)
+    record EventConfig(Integer id, @Index int season) implements IConfig<Integer> {
+        EventConfig {
+            CREATED.incrementAndGet();
+        }
+    }
+
+    @StorageConfig(path = "reward.json", lazy = true)
+    record RewardConfig(Integer id, int count) implements IConfig<Integer> {
+        RewardConfig {
+            if (count < 0) {
+                throw new IllegalArgumentException("count < 0");
+            }
+        }
+    }
+
+    @StorageConfig(path = "key.json", lazy = true)
+    record KeyConfig(int key) implements IConfig<Integer> {
+        @Override
+        public Integer id() {
+            return key;
+        }
+    }
+
+    @StorageConfig(path = "key.json", lazy = true)
+    record ShiftConfig(Integer id) implements IConfig<Integer> {
+        @Override
+        public Integer id() {
+            return id + 1;
+        }
+    }
+
+    @Test
+    void createOncePerGeneration(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("event.json"), """
+                [{"id": 1, "season": 1}, {"id": 2, "season": 1}, {"id": 3, "season": 2}]
+                """);
+        CREATED.set(0);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(EventConfig.class));
+        // 加载时只试创建一个对象
+        assertEquals(1, CREATED.get());
+
+        Storage<Integer, EventConfig> events = new StorageFactory(storage).create(EventConfig.class);
+        int threads = 8;
+        var barrier = new CyclicBarrier(threads);
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            Future<?>[] futures = new Future[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = executor.submit(() -> {
+                    barrier.await();
+                    return events.get(2).orElseThrow();
+                });
+            }
+            for (Future<?> future : futures) {
+                assertSame(futures[0].get(), future.get());
+            }
+        }
+        assertEquals(3, CREATED.get());
+        assertEquals(1, events.get(2).orElseThrow().season());
+        assertEquals(2, events.findBy("season", 1).size());
+        assertEquals(3, events.listConfig().size());
+        assertEquals(3, CREATED.get());
+
+        // 未变化的行复用旧对象
+        Files.writeString(dir.resolve("event.json"), """
+                [{"id": 1, "season": 1}, {"id": 2, "season": 1}, {"id": 3, "season": 3}]
+                """);
+        storage.refresh(Set.of(EventConfig.class));
+        assertEquals(3, events.get(3).orElseThrow().season());
+        assertEquals(4, CREATED.get());
+    }
+
+    @Test
+    void validateOnLoad(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("event.json"), """
+                [{"id": 1, "season": 1}, {"id": 1, "season": 2}]
+                """);
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(EventConfig.class)));
+        Files.writeString(dir.resolve("event.json"), """
+                [{"id": 1, "season": "x"}]
+                """);
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(EventConfig.class)));
+    }
+
+    @Test
+    void constructorFailure(@TempDir Path dir) throws Exception {
+        // 第一个对象在加载时创建
+        Files.writeString(dir.resolve("reward.json"), """
+                [{"id": 1, "count": -1}, {"id": 2, "count": 1}]
+                """);
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(RewardConfig.class)));
+
+        // 其余行的校验延迟到首次查询
+        Files.writeString(dir.resolve("reward.json"), """
+                [{"id": 1, "count": 1}, {"id": 2, "count": -1}]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(RewardConfig.class));
+        Storage<Integer, RewardConfig> rewards = new StorageFactory(storage).create(RewardConfig.class);
+        assertThrows(LhotseException.class, () -> rewards.get(1));
+        assertThrows(LhotseException.class, () -> rewards.get(1));
+    }
+
+    @Test
+    void idMustBeComponent(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("key.json"), """
+                [{"id": 1, "key": 2}, {"id": 2, "key": 1}]
+                """);
+        var ex = assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(KeyConfig.class)));
+        assertTrue(ex.getMessage().contains(KeyConfig.class.getName()), ex.getMessage());
+        // id()改写了id字段时按参数校验的id不可信
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(ShiftConfig.class)));
+    }
+}
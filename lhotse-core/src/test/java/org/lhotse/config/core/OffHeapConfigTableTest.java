@@ -0,0 +1,116 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.Index;
+import org.lhotse.config.core.annotations.StorageConfig;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapConfigTableTest {
+
+    @StorageConfig(path = "spawn.json", offHeap = true)
+    record SpawnConfig(Long id, String monster, List<Integer> points, int level) implements IConfig<Long> {
+    }
+
+    @StorageConfig(path = "name.json", offHeap = true)
+    record NameConfig(String id, String text) implements IConfig<String> {
+    }
+
+    @StorageConfig(path = "spawn.json", offHeap = true)
+    record IndexedConfig(Long id, @Index String monster) implements IConfig<Long> {
+    }
+
+    @StorageConfig(path = "spawn.json", offHeap = true)
+    record KeyConfig(Long key, String monster) implements IConfig<Long> {
+        @Override
+        public Long id() {
+            return key;
+        }
+    }
+
+    @StorageConfig(path = "spawn.json", offHeap = true)
+    record ShiftConfig(Long id, String monster) implements IConfig<Long> {
+        @Override
+        public Long id() {
+            return id + 1;
+        }
+    }
+
+    @Test
+    void materializeOnGet(@TempDir Path dir) throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("""
+                    {"id": %d, "monster": "怪物%d", "points": "[%d, %d]"}
+                    """.formatted(i * 7L + (1L << 40), i, i, i + 1));
+        }
+        Files.writeString(dir.resolve("spawn.json"), json.append("]").toString());
+        Files.writeString(dir.resolve("name.json"), """
+                [{"id": "a", "text": "甲"}, {"id": "b"}]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(SpawnConfig.class, NameConfig.class));
+        var factory = new StorageFactory(storage);
+
+        LongStorage<SpawnConfig> spawns = factory.createLong(SpawnConfig.class);
+        var spawn = spawns.get(7L * 10 + (1L << 40)).orElseThrow();
+        assertEquals(new SpawnConfig(70L + (1L << 40), "怪物10", List.of(10, 11), 0), spawn);
+        assertTrue(spawns.get(1L).isEmpty());
+        assertEquals(1000, spawns.listConfig().size());
+        assertEquals("怪物999", spawns.listConfig().get(999).monster());
+
+        Storage<String, NameConfig> names = factory.create(NameConfig.class);
+        assertEquals("甲", names.get("a").orElseThrow().text());
+        assertNull(names.get("b").orElseThrow().text());
+        assertTrue(names.get("c").isEmpty());
+
+        var table = (OffHeapConfigTable) storage.dataContainer.get().multiConfigData.get(SpawnConfig.class);
+        assertTrue(table.columns[1].offHeapBytes() > 0);
+    }
+
+    @Test
+    void sortedWithoutCachingRecords(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("spawn.json"), """
+                [{"id": 30, "monster": "c"}, {"id": -5, "monster": "a"}, {"id": 10, "monster": "b"}]
+                """);
+        Files.writeString(dir.resolve("name.json"), """
+                [{"id": "y"}, {"id": "x"}, {"id": "z"}]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(SpawnConfig.class, NameConfig.class));
+        var snapshot = storage.snapshot();
+
+        var spawns = snapshot.listSortedById(SpawnConfig.class);
+        assertEquals(List.of(-5L, 10L, 30L), spawns.stream().map(SpawnConfig::id).toList());
+        // 每次访问创建新对象, 不在堆内保留整表
+        assertNotSame(spawns.get(0), spawns.get(0));
+        assertEquals(List.of("x", "y", "z"), snapshot.listSortedById(NameConfig.class).stream().map(NameConfig::id).toList());
+        assertThrows(UnsupportedOperationException.class, () -> spawns.set(0, null));
+    }
+
+    @Test
+    void rejectInvalidTables(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("spawn.json"), """
+                [{"id": 1, "monster": "a"}, {"id": 1, "monster": "b"}]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        assertThrows(LhotseException.class, () -> storage.init(Set.of(SpawnConfig.class)));
+
+        Files.writeString(dir.resolve("spawn.json"), """
+                [{"id": 1, "monster": "a"}]
+                """);
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(IndexedConfig.class)));
+
+        // 没有id字段在解析类型时报错, id()改写了id字段在建表时报错
+        var ex = assertThrows(LhotseException.class, () -> new GlobalDataStorage.TypeInfoParse(dir.toString(), Set.of(KeyConfig.class), false));
+        assertTrue(ex.getMessage().contains(KeyConfig.class.getName()), ex.getMessage());
+        assertThrows(LhotseException.class, () -> new GlobalDataStorage(dir.toString(), 0L).init(Set.of(ShiftConfig.class)));
+    }
+}
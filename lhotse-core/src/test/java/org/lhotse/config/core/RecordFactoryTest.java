@@ -0,0 +1,46 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.lhotse.config.core.exception.LhotseException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordFactoryTest {
+
+    record AllTypes(int i, long l, boolean b, double d, Integer boxed, String s, List<Integer> list) {
+    }
+
+    private record Hidden(int id) {
+    }
+
+    @Test
+    void createAndGet() {
+        var factory = RecordFactory.of(AllTypes.class);
+        Object[] args = {1, 2L, true, 1.5, null, "a", List.of(1, 2)};
+        var value = (AllTypes) factory.create(args);
+        assertEquals(new AllTypes(1, 2L, true, 1.5, null, "a", List.of(1, 2)), value);
+        assertEquals(2L, factory.get(value, 1));
+        assertEquals(true, factory.get(value, 2));
+        assertNull(factory.get(value, 4));
+        assertArrayEquals(args, factory.args(value));
+    }
+
+    @Test
+    void createFailure() {
+        var factory = RecordFactory.of(AllTypes.class);
+        // 基础类型参数为null或类型不符
+        assertThrows(LhotseException.class, () -> factory.create(new Object[]{null, 2L, true, 1.5, null, "a", null}));
+        assertThrows(LhotseException.class, () -> factory.create(new Object[]{"1", 2L, true, 1.5, null, "a", null}));
+        assertThrows(LhotseException.class, () -> factory.create(new Object[]{1}));
+    }
+
+    @Test
+    void inaccessibleOrNotRecord() {
+        // 不可访问的record在初始化时报错
+        var ex = assertThrows(LhotseException.class, () -> RecordFactory.of(Hidden.class));
+        assertTrue(ex.getMessage().contains(Hidden.class.getName()), ex.getMessage());
+        assertThrows(LhotseException.class, () -> RecordFactory.of(String.class));
+    }
+}
@@ -0,0 +1,78 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.annotations.StorageConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordLoaderTest {
+
+    @StorageConfig(path = "item.json")
+    record ItemConfig(Integer id, String name, long price, Double weight, List<Integer> tags) implements IConfig<Integer> {
+    }
+
+    static final AtomicInteger LOADS = new AtomicInteger();
+
+    /**
+     * 与注解处理器生成的代码一致
+     */
+    public static final class ItemConfigLoader extends RecordLoader<ItemConfig> {
+
+        public ItemConfigLoader() {
+            super(ItemConfig.class);
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected ItemConfig load(Map<String, String> row) {
+            LOADS.incrementAndGet();
+            return new ItemConfig(
+                    parseIntOrNull(row.get("id")),
+                    parseString(row.get("name")),
+                    parseLong(row.get("price")),
+                    parseDoubleOrNull(row.get("weight")),
+                    (List) parse(4, row.get("tags")));
+        }
+    }
+
+    @Test
+    void generatedLoader(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100, "tags": [1, 2]},
+                    {"id": 2, "weight": 1.5}
+                ]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(ItemConfig.class));
+        assertNotNull(storage.typeInfoParse.configTypeInfo.get(ItemConfig.class).loader());
+        assertEquals(2, LOADS.get());
+        assertEquals(new ItemConfig(1, "sword", 100L, null, List.of(1, 2)), storage.getConfig(ItemConfig.class, 1).orElseThrow());
+        assertEquals(new ItemConfig(2, null, 0L, 1.5, null), storage.getConfig(ItemConfig.class, 2).orElseThrow());
+
+        Files.writeString(dir.resolve("item.json"), """
+                [{"id": 1, "price": "x"}]
+                """);
+        var ex = assertThrows(RuntimeException.class, () -> storage.refresh(Set.of(ItemConfig.class)));
+        assertTrue(ex.getMessage().contains("item.json"), ex.getMessage());
+    }
+
+    @Test
+    void sameAsFieldParsers() {
+        assertEquals((byte) 0, RecordLoader.parseByte(null));
+        assertEquals((short) -3, RecordLoader.parseShort("-3"));
+        assertThrows(NumberFormatException.class, () -> RecordLoader.parseShort(" -3 "));
+        assertThrows(NumberFormatException.class, () -> RecordLoader.parseByte("300"));
+        assertThrows(NumberFormatException.class, () -> RecordLoader.parseShortOrNull("70000"));
+        assertFalse(RecordLoader.parseBoolean("1"));
+        assertTrue(RecordLoader.parseBooleanOrNull("TRUE"));
+    }
+}
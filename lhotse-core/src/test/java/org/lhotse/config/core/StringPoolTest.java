@@ -0,0 +1,82 @@
+package org.lhotse.config.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void internOnlyStringFields() {
+        var pool = new StringPool();
+        var typeInfo = new GlobalDataStorage.TypeInfoParse("", Set.of(), false).parseConfig(GlobalDataStorageTest.ItemConfig.class);
+        var a = new DataContainer.ConfigData(typeInfo, Map.of("id", "1", "name", new String("sword"), "price", new String("100")), 1L, pool);
+        var b = new DataContainer.ConfigData(typeInfo, Map.of("id", "2", "name", new String("sword"), "price", new String("100")), 2L, pool);
+
+        assertSame(a.args[1], b.args[1]);
+        // 表头和数字单元格不计入
+        assertEquals(1, pool.size());
+        assertEquals(StringPool.STRING_OVERHEAD + "sword".length(), pool.savedBytes());
+        assertNull(pool.intern(null));
+    }
+
+    @Test
+    void loaderInternsOnlyStringFields() {
+        var pool = new StringPool();
+        var typeInfo = new GlobalDataStorage.TypeInfoParse("", Set.of(), false).parseConfig(RecordLoaderTest.ItemConfig.class);
+        assertTrue(typeInfo.useLoader());
+        var a = (RecordLoaderTest.ItemConfig) new DataContainer.ConfigData(typeInfo, Map.of("id", "1", "name", new String("sword"), "price", new String("100")), 1L, pool).data;
+        var b = (RecordLoaderTest.ItemConfig) new DataContainer.ConfigData(typeInfo, Map.of("id", "2", "name", new String("sword"), "price", new String("100")), 2L, pool).data;
+
+        assertSame(a.name(), b.name());
+        assertEquals(1, pool.size());
+        assertEquals(StringPool.STRING_OVERHEAD + "sword".length(), pool.savedBytes());
+    }
+
+    @Test
+    void recordsShareStrings(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100},
+                    {"id": 2, "name": "sword", "price": 200}
+                ]
+                """);
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.init(Set.of(GlobalDataStorageTest.ItemConfig.class));
+        var items = storage.listConfig(GlobalDataStorageTest.ItemConfig.class);
+        assertSame(items.get(0).name(), items.get(1).name());
+    }
+
+    @Test
+    void pipelinedInternsOnlyStringFields(@TempDir Path dir) throws Exception {
+        GlobalDataStorageTest.writeConfigs(dir);
+        Files.writeString(dir.resolve("item.json"), """
+                [
+                    {"id": 1, "name": "sword", "price": 100},
+                    {"id": 2, "name": "sword", "price": 100}
+                ]
+                """);
+        long[] pool = new long[2];
+        var storage = new GlobalDataStorage(dir.toString(), 0L);
+        storage.setPipelined(true);
+        storage.setMetrics(new LhotseMetrics() {
+            @Override
+            public void stringPool(int size, long savedBytes) {
+                pool[0] = size;
+                pool[1] = savedBytes;
+            }
+        });
+        storage.init(Set.of(GlobalDataStorageTest.ItemConfig.class));
+        var items = storage.listConfig(GlobalDataStorageTest.ItemConfig.class);
+        assertSame(items.get(0).name(), items.get(1).name());
+        assertEquals(1, pool[0]);
+        assertEquals(StringPool.STRING_OVERHEAD + "sword".length(), pool[1]);
+    }
+}
@@ -1,7 +1,9 @@
 package org.lhotse.config.spring;
 
 import org.lhotse.config.core.GlobalDataStorage;
+import org.lhotse.config.core.LhotseMetrics;
 import org.lhotse.config.core.StorageFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,7 +18,12 @@ public class LhotseConfiguration {
     }
 
     @Bean(destroyMethod = "close")
-    GlobalDataStorage globalDataStorage(LhotseProperties properties) {
-        return new GlobalDataStorage(properties.getConfigRoot(), properties.getWatchUpdateFileIntervalMs());
+    GlobalDataStorage globalDataStorage(LhotseProperties properties, ObjectProvider<LhotseMetrics> metrics) {
+        var storage = new GlobalDataStorage(properties.getConfigRoot(), properties.getWatchUpdateFileIntervalMs(),
+                properties.isStreaming(), properties.getParallelism());
+        storage.setCompiledPath(properties.getCompiledPath());
+        storage.setPipelined(properties.isPipelined());
+        metrics.ifUnique(storage::setMetrics);
+        return storage;
     }
 }
@@ -0,0 +1,25 @@
+package org.lhotse.config.spring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lhotse.config.core.LhotseMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 存在Micrometer时记录加载和查询指标, 自定义{@link LhotseMetrics}时不生效<br>
+ * 作为自动配置在用户配置之后处理, 保证{@link ConditionalOnMissingBean}可靠
+ */
+@AutoConfiguration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class LhotseMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(LhotseMetrics.class)
+    LhotseMetrics lhotseMetrics(ObjectProvider<MeterRegistry> registry) {
+        var meterRegistry = registry.getIfAvailable();
+        return meterRegistry == null ? LhotseMetrics.NOOP : new MicrometerLhotseMetrics(meterRegistry);
+    }
+}
@@ -15,7 +15,23 @@ public class LhotseProperties {
      */
     private String configRoot;
     /**
-     * 文件监听间隔（ms）
+     * 文件变化合并等待时间（ms）, 最后一次变化后这段时间内没有新变化才刷新, 小于等于0不监听
      */
     private long watchUpdateFileIntervalMs = 5000L;
+    /**
+     * 是否全局使用流式读取Excel
+     */
+    private boolean streaming = false;
+    /**
+     * 并行加载的线程数
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * 预编译数据路径, 为空时直接读取源文件
+     */
+    private String compiledPath;
+    /**
+     * 是否使用流水线模式加载, 降低加载期间的内存峰值
+     */
+    private boolean pipelined = false;
 }
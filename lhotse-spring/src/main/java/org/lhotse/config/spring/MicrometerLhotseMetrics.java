@@ -0,0 +1,114 @@
+package org.lhotse.config.spring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.lhotse.config.core.LhotseMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 将加载和查询指标记录到Micrometer
+ * <ul>
+ *     <li>lhotse.file.read: 单个文件读取耗时, 标签path</li>
+ *     <li>lhotse.file.rows / lhotse.file.bytes: 单个文件行数和大小, 标签path</li>
+ *     <li>lhotse.load.stage: 加载阶段耗时, 标签stage</li>
+ *     <li>lhotse.load.stage.allocated: 加载阶段估算分配的内存, 标签stage</li>
+ *     <li>lhotse.reload: 加载耗时</li>
+ *     <li>lhotse.reload.failed: 加载失败次数</li>
+ *     <li>lhotse.generation: 当前数据版本</li>
+ *     <li>lhotse.table.rows: 配置表行数, 标签config为配置类全名</li>
+ *     <li>lhotse.string.pool.size / lhotse.string.pool.saved: 最近一次加载的字符串去重</li>
+ *     <li>lhotse.lookup: 按id查询次数, 标签config为配置类全名, result</li>
+ * </ul>
+ */
+public class MicrometerLhotseMetrics implements LhotseMetrics {
+
+    final MeterRegistry registry;
+    final AtomicLong generation = new AtomicLong();
+    final AtomicLong stringPoolSize = new AtomicLong();
+    final AtomicLong stringPoolSaved = new AtomicLong();
+    final Map<Class<?>, AtomicLong> tableRows = new ConcurrentHashMap<>();
+    /**
+     * 查询在热路径上, 计数器按类缓存, [命中, 未命中]
+     */
+    final ClassValue<Counter[]> lookups = new ClassValue<>() {
+        @Override
+        protected Counter[] computeValue(Class<?> type) {
+            return new Counter[]{lookupCounter(type, "hit"), lookupCounter(type, "miss")};
+        }
+    };
+
+    public MicrometerLhotseMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("lhotse.generation", generation, AtomicLong::get)
+                .description("当前数据版本")
+                .register(registry);
+        Gauge.builder("lhotse.string.pool.size", stringPoolSize, AtomicLong::get)
+                .description("最近一次加载去重的字符串数量")
+                .register(registry);
+        Gauge.builder("lhotse.string.pool.saved", stringPoolSaved, AtomicLong::get)
+                .description("最近一次加载字符串去重节省的估算字节数")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    Counter lookupCounter(Class<?> type, String result) {
+        return Counter.builder("lhotse.lookup")
+                .tag("config", type.getName())
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public void fileRead(String path, long nanos, int rows, long bytes) {
+        Timer.builder("lhotse.file.read").tag("path", path).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("lhotse.file.rows").tag("path", path).register(registry).record(rows);
+        DistributionSummary.builder("lhotse.file.bytes").tag("path", path).baseUnit("bytes").register(registry).record(bytes);
+    }
+
+    @Override
+    public void stage(String stage, long nanos, long allocatedBytes) {
+        Timer.builder("lhotse.load.stage").tag("stage", stage).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        if (allocatedBytes >= 0) {
+            DistributionSummary.builder("lhotse.load.stage.allocated").tag("stage", stage).baseUnit("bytes")
+                    .register(registry).record(allocatedBytes);
+        }
+    }
+
+    @Override
+    public void tableLoaded(Class<?> clazz, int rows) {
+        tableRows.computeIfAbsent(clazz, k -> {
+            var value = new AtomicLong();
+            Gauge.builder("lhotse.table.rows", value, AtomicLong::get).tag("config", k.getName()).register(registry);
+            return value;
+        }).set(rows);
+    }
+
+    @Override
+    public void reload(long generation, long nanos, int tables) {
+        this.generation.set(generation);
+        Timer.builder("lhotse.reload").register(registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void reloadFailed(Throwable cause) {
+        Counter.builder("lhotse.reload.failed").register(registry).increment();
+    }
+
+    @Override
+    public void stringPool(int size, long savedBytes) {
+        stringPoolSize.set(size);
+        stringPoolSaved.set(savedBytes);
+    }
+
+    @Override
+    public void lookup(Class<?> clazz, boolean hit) {
+        lookups.get(clazz)[hit ? 0 : 1].increment();
+    }
+}
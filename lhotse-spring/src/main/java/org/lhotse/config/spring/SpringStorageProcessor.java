@@ -4,24 +4,38 @@ import com.google.auto.service.AutoService;
 
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.ElementKind;
-import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * 处理@GenerateStorage, 生成:
+ * <ul>
+ *     <li>每个配置类的XxxLoader: 逐个字段解析后直接调用构造方法, 通过ServiceLoader注册到运行时</li>
+ *     <li>每个配置类的XxxStorage: 类型化的查询, id为Integer或Long时使用基础类型</li>
+ *     <li>@EnableLhotse所在包的SpringStorageGeneratorConfiguration: 注册配置类和Storage的Bean</li>
+ * </ul>
+ */
 @SupportedAnnotationTypes("org.lhotse.config.spring.GenerateStorage")
 @SupportedSourceVersion(SourceVersion.RELEASE_21)
 @AutoService(Processor.class)
 public class SpringStorageProcessor extends AbstractProcessor {
 
+    static final String LOADER_SERVICE = "META-INF/services/org.lhotse.config.core.RecordLoader";
+
     private Filer filer;
+    /**
+     * 所有轮次生成的加载器, 最后一轮写入服务注册文件
+     */
+    private final Set<String> loaders = new TreeSet<>();
 
     @Override
     public Set<String> getSupportedAnnotationTypes() {
@@ -49,10 +63,257 @@ public class SpringStorageProcessor extends AbstractProcessor {
         var elements = roundEnv.getElementsAnnotatedWith(GenerateStorage.class).stream()
                 .filter(e -> e.getKind() == ElementKind.RECORD)
                 .collect(Collectors.toSet());
+        for (Element element : elements) {
+            var type = (TypeElement) element;
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "私有配置类不生成加载器和Storage", element);
+                continue;
+            }
+            createLoader(type);
+            createStorage(type);
+        }
         createConfiguration(elements, mainClass);
+        if (roundEnv.processingOver()) {
+            createLoaderService();
+        }
         return true;
     }
 
+    /**
+     * 生成类名前缀, 生成类与配置类同包, 嵌套类用_连接外部类, 避免与同包的顶层类重名
+     */
+    String generatedName(TypeElement element) {
+        var packageName = packageName(element);
+        var name = element.getQualifiedName().toString();
+        return (packageName.isEmpty() ? name : name.substring(packageName.length() + 1)).replace(".", "_");
+    }
+
+    /**
+     * bean名后缀, 由全限定名生成, 不同包下同名的配置类不会冲突; 前缀区分bean的种类
+     */
+    String beanName(TypeElement element) {
+        return element.getQualifiedName().toString().replace(".", "_");
+    }
+
+    String packageName(TypeElement element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+
+    void write(String className, String content) {
+        try {
+            JavaFileObject source = filer.createSourceFile(className);
+            try (Writer writer = source.openWriter()) {
+                writer.write(content);
+            }
+        } catch (Exception e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成" + className + "失败, " + e);
+        }
+    }
+
+    /**
+     * 生成加载器, 基础类型和字符串字段直接解析, 其他字段使用运行时的字段解析器
+     */
+    void createLoader(TypeElement element) {
+        var packageName = packageName(element);
+        var loaderName = generatedName(element) + "Loader";
+        var type = element.getQualifiedName().toString();
+        List<String> args = new ArrayList<>();
+        var components = element.getRecordComponents();
+        for (int i = 0; i < components.size(); i++) {
+            var component = components.get(i);
+            var raw = "row.get(\"" + component.getSimpleName() + "\")";
+            var parser = parser(component);
+            if (parser != null) {
+                args.add(parser + "(" + raw + ")");
+            } else {
+                var erasure = processingEnv.getTypeUtils().erasure(component.asType()).toString();
+                args.add("(" + erasure + ") parse(" + i + ", " + raw + ")");
+            }
+        }
+        write((packageName.isEmpty() ? "" : packageName + ".") + loaderName, String.format("""
+                %s
+                import java.util.Map;
+                import org.lhotse.config.core.RecordLoader;
+
+                public final class %s extends RecordLoader<%s> {
+
+                    public %s() {
+                        super(%s.class);
+                    }
+
+                    @Override
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    protected %s load(Map<String, String> row) {
+                        return new %s(
+                                %s);
+                    }
+                }
+                """, packageName.isEmpty() ? "" : "package " + packageName + ";\n", loaderName, type, loaderName, type,
+                type, type, String.join(",\n" + " ".repeat(16), args)));
+        loaders.add((packageName.isEmpty() ? "" : packageName + ".") + loaderName);
+    }
+
+    /**
+     * 直接解析的字段对应的{@link org.lhotse.config.core.RecordLoader}方法, 不支持时返回null
+     */
+    String parser(RecordComponentElement component) {
+        for (AnnotationMirror annotation : component.getAnnotationMirrors()) {
+            var name = annotation.getAnnotationType().toString();
+            if (name.equals("org.lhotse.config.core.annotations.Custom") || name.equals("org.lhotse.config.core.annotations.Ref")) {
+                return null;
+            }
+        }
+        TypeMirror type = component.asType();
+        return switch (type.getKind()) {
+            case BOOLEAN -> "parseBoolean";
+            case BYTE -> "parseByte";
+            case SHORT -> "parseShort";
+            case INT -> "parseInt";
+            case LONG -> "parseLong";
+            case FLOAT -> "parseFloat";
+            case DOUBLE -> "parseDouble";
+            case DECLARED -> switch (processingEnv.getTypeUtils().erasure(type).toString()) {
+                case "java.lang.String" -> "parseString";
+                case "java.lang.Boolean" -> "parseBooleanOrNull";
+                case "java.lang.Byte" -> "parseByteOrNull";
+                case "java.lang.Short" -> "parseShortOrNull";
+                case "java.lang.Integer" -> "parseIntOrNull";
+                case "java.lang.Long" -> "parseLongOrNull";
+                case "java.lang.Float" -> "parseFloatOrNull";
+                case "java.lang.Double" -> "parseDoubleOrNull";
+                default -> null;
+            };
+            default -> null;
+        };
+    }
+
+    /**
+     * 生成类型化的查询, id为Integer或Long时查询不装箱
+     */
+    void createStorage(TypeElement element) {
+        var packageName = packageName(element);
+        var storageName = generatedName(element) + "Storage";
+        var type = element.getQualifiedName().toString();
+        var id = idType(element);
+        String body;
+        if (id.isEmpty()) {
+            body = String.format("""
+                        final SingleStorage<%1$s> storage;
+
+                        public %2$s(StorageFactory factory) {
+                            this.storage = factory.createSingle(%1$s.class);
+                        }
+
+                        public %1$s get() {
+                            return storage.getOrNull();
+                        }
+
+                        public SingleStorage<%1$s> storage() {
+                            return storage;
+                        }
+                    """, type, storageName);
+        } else {
+            String storage;
+            String create;
+            String key;
+            if ("java.lang.Integer".equals(id)) {
+                storage = "IntStorage<" + type + ">";
+                create = "createInt";
+                key = "int";
+            } else if ("java.lang.Long".equals(id)) {
+                storage = "LongStorage<" + type + ">";
+                create = "createLong";
+                key = "long";
+            } else {
+                storage = "Storage<" + id + ", " + type + ">";
+                create = "create";
+                key = id;
+            }
+            body = String.format("""
+                        final %3$s storage;
+
+                        public %2$s(StorageFactory factory) {
+                            this.storage = factory.%4$s(%1$s.class);
+                        }
+
+                        /**
+                         * 不存在返回null
+                         */
+                        public %1$s get(%5$s id) {
+                            return storage.getOrNull(id);
+                        }
+
+                        public %1$s getOrDefault(%5$s id, %1$s fallback) {
+                            return storage.getOrDefault(id, fallback);
+                        }
+
+                        public boolean contains(%5$s id) {
+                            return storage.contains(id);
+                        }
+
+                        public List<%1$s> list() {
+                            return storage.listConfig();
+                        }
+
+                        public %3$s storage() {
+                            return storage;
+                        }
+                    """, type, storageName, storage, create, key);
+        }
+        write((packageName.isEmpty() ? "" : packageName + ".") + storageName, String.format("""
+                %s
+                import java.util.List;
+                import org.lhotse.config.core.*;
+
+                public final class %s {
+
+                %s}
+                """, packageName.isEmpty() ? "" : "package " + packageName + ";\n", storageName, body));
+    }
+
+    /**
+     * 加载器的服务注册文件, 与已有的文件合并, 增量编译时不丢失未重新生成的加载器
+     */
+    void createLoaderService() {
+        if (loaders.isEmpty()) {
+            return;
+        }
+        try {
+            var existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", LOADER_SERVICE);
+            try (var reader = new BufferedReader(existing.openReader(true))) {
+                reader.lines()
+                        .map(line -> line.replaceAll("#.*", "").trim())
+                        .filter(line -> !line.isEmpty())
+                        .forEach(loaders::add);
+            }
+        } catch (IOException ignored) {
+            // 文件不存在, 全新生成
+        }
+        try {
+            var resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", LOADER_SERVICE);
+            try (Writer writer = resource.openWriter()) {
+                for (String loader : loaders) {
+                    writer.write(loader + "\n");
+                }
+            }
+        } catch (Exception e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成" + LOADER_SERVICE + "失败, " + e);
+        }
+    }
+
+    /**
+     * id()的返回类型, 单配置表返回空
+     */
+    String idType(TypeElement element) {
+        return element.getEnclosedElements().stream()
+                .filter(e -> e.getKind() == ElementKind.METHOD)
+                .map(e -> ((ExecutableElement) e))
+                .filter(e -> "id".equals(e.getSimpleName().toString()))
+                .map(e -> e.getReturnType().toString())
+                .findFirst()
+                .orElse("");
+    }
+
     void createConfiguration(Set<? extends Element> elements, String basePackage) {
 //        basePackage = elements.stream().findFirst()
 //                .map(e -> {
@@ -101,32 +362,61 @@ public class SpringStorageProcessor extends AbstractProcessor {
     }
 
     String buildBeanMethod(TypeElement element, List<String> classes) {
-        String id = element.getEnclosedElements().stream()
-                .filter(e -> e.getKind() == ElementKind.METHOD)
-                .map(e -> ((ExecutableElement) e))
-                .filter(e -> "id".equals(e.getSimpleName().toString()))
-                .map(e -> e.getReturnType().toString())
-                .findFirst()
-                .orElse("");
+        String id = idType(element);
         String type = element.getQualifiedName().toString();
-        String simpleName = element.getSimpleName().toString();
+        String beanName = beanName(element);
         classes.add(type + ".class");
+        if (!element.getModifiers().contains(Modifier.PRIVATE)) {
+            var packageName = packageName(element);
+            var storage = (packageName.isEmpty() ? "" : packageName + ".") + generatedName(element) + "Storage";
+            return typedBeanMethod(storage, beanName) + untypedBeanMethod(element, id, type, beanName);
+        }
+        return untypedBeanMethod(element, id, type, beanName);
+    }
+
+    String typedBeanMethod(String storage, String beanName) {
+        return String.format("""
+
+                    @Bean
+                    %s typedStorage_%s(StorageFactory factory){
+                        return new %s(factory);
+                    }
+                """, storage, beanName, storage);
+    }
+
+    String untypedBeanMethod(TypeElement element, String id, String type, String beanName) {
         if (id.isEmpty()) {
             return String.format("""
                                             
                         @Bean
-                        SingleStorage<%s> %sSingleStorage(StorageFactory factory){
+                        SingleStorage<%s> singleStorage_%s(StorageFactory factory){
                             return factory.createSingle(%s.class);
                         }
-                    """, type, simpleName, type);
+                    """, type, beanName, type);
+        } else if ("java.lang.Integer".equals(id)) {
+            return String.format("""
+                                        
+                    @Bean
+                        IntStorage<%s> storage_%s(StorageFactory factory){
+                            return factory.createInt(%s.class);
+                    }
+                """, type, beanName, type);
+        } else if ("java.lang.Long".equals(id)) {
+            return String.format("""
+                                        
+                    @Bean
+                        LongStorage<%s> storage_%s(StorageFactory factory){
+                            return factory.createLong(%s.class);
+                    }
+                """, type, beanName, type);
         } else {
             return String.format("""
                                         
                     @Bean
-                        Storage<%s, %s> %sStorage(StorageFactory factory){
+                        Storage<%s, %s> storage_%s(StorageFactory factory){
                             return factory.create(%s.class);
                     }
-                """, id, type, simpleName, type);
+                """, id, type, beanName, type);
         }
     }
 }
@@ -0,0 +1,32 @@
+package org.lhotse.config.spring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.lhotse.config.core.LhotseMetrics;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LhotseMetricsAutoConfigurationTest {
+
+    final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LhotseMetricsAutoConfiguration.class));
+
+    @Test
+    void micrometer() {
+        runner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .run(context -> assertInstanceOf(MicrometerLhotseMetrics.class, context.getBean(LhotseMetrics.class)));
+    }
+
+    @Test
+    void userMetrics() {
+        var metrics = new LhotseMetrics() {
+        };
+        // 用户配置先于自动配置处理, 只保留用户定义的指标
+        runner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withBean(LhotseMetrics.class, () -> metrics)
+                .run(context -> assertSame(metrics, context.getBean(LhotseMetrics.class)));
+    }
+}
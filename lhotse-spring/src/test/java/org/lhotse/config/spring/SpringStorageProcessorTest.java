@@ -0,0 +1,256 @@
+package org.lhotse.config.spring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lhotse.config.core.ConfigRef;
+import org.lhotse.config.core.GlobalDataStorage;
+import org.lhotse.config.core.RecordLoader;
+import org.lhotse.config.core.StorageFactory;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 使用注解处理器编译示例配置类, 通过生成的服务注册文件加载数据
+ */
+class SpringStorageProcessorTest {
+
+    static final Map<String, String> SOURCES = Map.of(
+            "sample/App.java", """
+                    package sample;
+
+                    @org.lhotse.config.spring.EnableLhotse
+                    public class App {
+                    }
+                    """,
+            "sample/Item.java", """
+                    package sample;
+
+                    import org.lhotse.config.core.*;
+                    import org.lhotse.config.core.annotations.*;
+                    import org.lhotse.config.spring.GenerateStorage;
+                    import java.util.List;
+
+                    @GenerateStorage
+                    @StorageConfig(path = "item.json")
+                    public record Item(Integer id, String name, short level, Boolean sell, List<Integer> tags,
+                                       @Custom(convertor = Upper.class) String code,
+                                       @Ref(Shop.class) ConfigRef<Shop> shop) implements IConfig<Integer> {
+
+                        /**
+                         * 记录创建对象的类, 用于确认使用了生成的加载器
+                         */
+                        public static volatile String creator;
+
+                        public Item {
+                            creator = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).getCallerClass().getName();
+                        }
+
+                        public static class Upper implements FieldConvertor {
+                            @Override
+                            public Object encode(String text) {
+                                return text.toUpperCase();
+                            }
+                        }
+                    }
+                    """,
+            "sample/Shop.java", """
+                    package sample;
+
+                    import org.lhotse.config.core.IConfig;
+                    import org.lhotse.config.core.annotations.StorageConfig;
+                    import org.lhotse.config.spring.GenerateStorage;
+
+                    @GenerateStorage
+                    @StorageConfig(path = "shop.json")
+                    public record Shop(Long id, double price) implements IConfig<Long> {
+                    }
+                    """,
+            "sample/Named.java", """
+                    package sample;
+
+                    import org.lhotse.config.core.IConfig;
+                    import org.lhotse.config.core.annotations.StorageConfig;
+                    import org.lhotse.config.spring.GenerateStorage;
+
+                    @GenerateStorage
+                    @StorageConfig(path = "named.json")
+                    public record Named(String id, int value) implements IConfig<String> {
+                    }
+                    """,
+            "sample/Sys.java", """
+                    package sample;
+
+                    import org.lhotse.config.core.annotations.SingleConfig;
+                    import org.lhotse.config.core.annotations.StorageConfig;
+                    import org.lhotse.config.spring.GenerateStorage;
+
+                    @GenerateStorage
+                    @StorageConfig(path = "sys.json")
+                    @SingleConfig(key = "sys")
+                    public record Sys(int threads, String name) {
+                    }
+                    """);
+
+    static Path compile(Path dir) throws Exception {
+        return compile(dir, SOURCES);
+    }
+
+    static Path compile(Path dir, Map<String, String> sources) throws Exception {
+        var src = dir.resolve("src");
+        var classes = Files.createDirectories(dir.resolve("classes"));
+        List<File> files = new ArrayList<>();
+        for (var entry : sources.entrySet()) {
+            var file = src.resolve(entry.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, entry.getValue());
+            files.add(file.toFile());
+        }
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (var fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            var task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-classpath", System.getProperty("java.class.path"), "-d", classes.toString()),
+                    null, fileManager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(List.of(new SpringStorageProcessor()));
+            assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+        return classes;
+    }
+
+    @Test
+    void generatedLoaderAndStorage(@TempDir Path dir) throws Exception {
+        var classes = compile(dir);
+        var service = classes.resolve("META-INF/services/org.lhotse.config.core.RecordLoader");
+        assertEquals(List.of("sample.ItemLoader", "sample.NamedLoader", "sample.ShopLoader", "sample.SysLoader"),
+                Files.readAllLines(service));
+        assertTrue(Files.exists(classes.resolve("sample/SpringStorageGeneratorConfiguration.class")));
+
+        var data = Files.createDirectories(dir.resolve("data"));
+        Files.writeString(data.resolve("item.json"), """
+                [{"id": 1, "name": "sword", "level": 3, "sell": "true", "tags": [1, 2], "code": "ab", "shop": 7}]
+                """);
+        Files.writeString(data.resolve("shop.json"), """
+                [{"id": 7, "price": 1.5}]
+                """);
+        Files.writeString(data.resolve("named.json"), """
+                [{"id": "a", "value": 5}]
+                """);
+        Files.writeString(data.resolve("sys.json"), """
+                {"sys": {"threads": 4, "name": "lhotse"}}
+                """);
+
+        var thread = Thread.currentThread();
+        var parent = thread.getContextClassLoader();
+        try (var loader = new URLClassLoader(new java.net.URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            // 加载器通过上下文类加载器发现
+            thread.setContextClassLoader(loader);
+            Map<String, Class<?>> types = new HashMap<>();
+            for (String name : List.of("Item", "Shop", "Named", "Sys")) {
+                types.put(name, loader.loadClass("sample." + name));
+            }
+            for (RecordLoader<?> recordLoader : ServiceLoader.load(RecordLoader.class, loader)) {
+                assertSame(types.get(recordLoader.getClass().getSimpleName().replace("Loader", "")), recordLoader.type());
+            }
+
+            var storage = new GlobalDataStorage(data.toString(), 0L);
+            storage.init(new HashSet<>(types.values()));
+            var factory = new StorageFactory(storage);
+            assertEquals("sample.ItemLoader", types.get("Item").getField("creator").get(null));
+
+            var item = invoke(storage("Item", loader, factory), "get", 1);
+            assertEquals("sword", invoke(item, "name"));
+            assertEquals((short) 3, invoke(item, "level"));
+            assertEquals(true, invoke(item, "sell"));
+            assertEquals(List.of(1, 2), invoke(item, "tags"));
+            assertEquals("AB", invoke(item, "code"));
+            var shop = ((ConfigRef<?>) invoke(item, "shop")).get();
+            assertSame(shop, invoke(storage("Shop", loader, factory), "get", 7L));
+            assertEquals(1.5, invoke(shop, "price"));
+            assertEquals(5, invoke(invoke(storage("Named", loader, factory), "get", "a"), "value"));
+            assertEquals(4, invoke(invoke(storage("Sys", loader, factory), "get"), "threads"));
+        } finally {
+            thread.setContextClassLoader(parent);
+        }
+    }
+
+    @Test
+    void sameSimpleNameAndExistingService(@TempDir Path dir) throws Exception {
+        var sources = new HashMap<>(SOURCES);
+        sources.put("other/Item.java", """
+                package other;
+
+                import org.lhotse.config.core.IConfig;
+                import org.lhotse.config.spring.GenerateStorage;
+
+                @GenerateStorage
+                public record Item(Integer id) implements IConfig<Integer> {
+                }
+                """);
+        sources.put("sample/Outer.java", """
+                package sample;
+
+                import org.lhotse.config.core.IConfig;
+                import org.lhotse.config.spring.GenerateStorage;
+
+                public class Outer {
+                    @GenerateStorage
+                    public record Inner(Long id) implements IConfig<Long> {
+                    }
+                }
+                """);
+        sources.put("sample/OuterInner.java", """
+                package sample;
+
+                import org.lhotse.config.core.IConfig;
+                import org.lhotse.config.spring.GenerateStorage;
+
+                @GenerateStorage
+                public record OuterInner(Long id) implements IConfig<Long> {
+                }
+                """);
+        // 增量编译时已有的注册文件需要保留
+        var service = dir.resolve("classes/META-INF/services/org.lhotse.config.core.RecordLoader");
+        Files.createDirectories(service.getParent());
+        Files.writeString(service, "# 旧的加载器\nlegacy.OldLoader\n");
+        var classes = compile(dir, sources);
+        assertEquals(List.of("legacy.OldLoader", "other.ItemLoader", "sample.ItemLoader", "sample.NamedLoader",
+                        "sample.OuterInnerLoader", "sample.Outer_InnerLoader", "sample.ShopLoader", "sample.SysLoader"),
+                Files.readAllLines(service));
+
+        try (var loader = new URLClassLoader(new java.net.URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Set<String> beans = new HashSet<>();
+            for (var method : loader.loadClass("sample.SpringStorageGeneratorConfiguration").getDeclaredMethods()) {
+                beans.add(method.getName());
+            }
+            assertTrue(beans.containsAll(List.of("typedStorage_sample_Item", "storage_sample_Item",
+                    "typedStorage_other_Item", "storage_other_Item", "typedStorage_sample_Outer_Inner",
+                    "singleStorage_sample_Sys")), beans.toString());
+        }
+    }
+
+    /**
+     * 创建生成的XxxStorage
+     */
+    static Object storage(String name, ClassLoader loader, StorageFactory factory) throws Exception {
+        return loader.loadClass("sample." + name + "Storage").getConstructor(StorageFactory.class).newInstance(factory);
+    }
+
+    /**
+     * 调用方法, 包装类型的参数按基础类型查找
+     */
+    static Object invoke(Object target, String method, Object... args) throws Exception {
+        var types = Arrays.stream(args)
+                .map(arg -> arg instanceof Integer ? int.class : arg instanceof Long ? long.class : arg.getClass())
+                .toArray(Class<?>[]::new);
+        return target.getClass().getMethod(method, types).invoke(target, args);
+    }
+}